@@ -0,0 +1,102 @@
+package com.softwaremill.jox.flows;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.softwaremill.jox.structured.Scopes;
+
+/**
+ * Tests of byte flows (decoding lines, files, input streams) and of the interop with {@link
+ * java.util.concurrent.Flow.Publisher}s. Each invocation processes {@link #LINES} lines of text
+ * (or, for publishers, that many elements), so the score is the time per line; run with {@code
+ * -prof gc} to additionally get the allocation per line ({@code gc.alloc.rate.norm}).
+ */
+@Warmup(iterations = 3, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class FlowIOBenchmark {
+    static final int LINES = 100_000;
+    private static final int CHUNK_SIZE = 8192;
+
+    private byte[][] chunks;
+    private Path input;
+    private Path output;
+
+    @Setup
+    public void setup() throws IOException {
+        var sb = new StringBuilder();
+        for (int i = 0; i < LINES; i++) {
+            sb.append("line ").append(i).append(": ").append("x".repeat(64)).append('\n');
+        }
+        var bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+
+        // splitting into chunks, so that some lines span multiple chunks
+        chunks = new byte[(bytes.length + CHUNK_SIZE - 1) / CHUNK_SIZE][];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] =
+                    Arrays.copyOfRange(
+                            bytes, i * CHUNK_SIZE, Math.min(bytes.length, (i + 1) * CHUNK_SIZE));
+        }
+
+        input = Files.createTempFile("jox-bench-in", ".txt");
+        Files.write(input, bytes);
+        output = Files.createTempFile("jox-bench-out", ".txt");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(input);
+        Files.deleteIfExists(output);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void linesUtf8() throws Exception {
+        Flows.fromByteArrays(chunks).linesUtf8().runDrain();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void fromFileLinesUtf8() throws Exception {
+        Flows.fromFile(input).linesUtf8().runDrain();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void fromFileRunToFile() throws Exception {
+        Flows.fromFile(input).runToFile(output);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void runToInputStream() throws Exception {
+        Scopes.supervised(
+                scope -> {
+                    try (var is = Flows.fromByteArrays(chunks).runToInputStream(scope)) {
+                        is.transferTo(OutputStream.nullOutputStream());
+                    }
+                    return null;
+                });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void toPublisherFromPublisher() throws Exception {
+        Scopes.supervised(
+                scope -> {
+                    var publisher = Flows.range(1, LINES, 1).toPublisher(scope);
+                    Flows.fromPublisher(publisher).runDrain();
+                    return null;
+                });
+    }
+}
@@ -0,0 +1,112 @@
+package com.softwaremill.jox.flows;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Tests of {@link Flow} operators. Each invocation runs a flow of {@link #ELEMENTS} elements, so
+ * the score is the time per element; run with {@code -prof gc} to additionally get the allocation
+ * per element ({@code gc.alloc.rate.norm}).
+ */
+@Warmup(iterations = 3, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FlowOperatorsBenchmark {
+    static final int ELEMENTS = 100_000;
+
+    @State(Scope.Thread)
+    public static class ChainState {
+        /**
+         * The number of stages; every other stage is a {@code map}, the others a {@code filter}.
+         */
+        @Param({"1", "4", "16"})
+        public int stages;
+    }
+
+    @State(Scope.Thread)
+    public static class BufferState {
+        @Param({"16", "1024"})
+        public int capacity;
+    }
+
+    @State(Scope.Thread)
+    public static class ParallelismState {
+        @Param({"1", "4", "16", "64"})
+        public int parallelism;
+    }
+
+    @State(Scope.Thread)
+    public static class GroupsState {
+        @Param({"4", "64"})
+        public int groups;
+    }
+
+    private static Flow<Integer> source() {
+        return Flows.range(1, ELEMENTS, 1);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ELEMENTS)
+    public void mapFilterChain(ChainState state) throws Exception {
+        var flow = source();
+        for (int i = 0; i < state.stages; i++) {
+            flow = i % 2 == 0 ? flow.map(x -> x + 1) : flow.filter(x -> x > 0);
+        }
+        flow.runDrain();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ELEMENTS)
+    public void buffer(BufferState state) throws Exception {
+        source().buffer(state.capacity).runDrain();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ELEMENTS)
+    public void mapPar(ParallelismState state) throws Exception {
+        source().mapPar(state.parallelism, x -> x + 1).runDrain();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ELEMENTS)
+    public void mapParUnordered(ParallelismState state) throws Exception {
+        source().mapParUnordered(state.parallelism, x -> x + 1).runDrain();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ELEMENTS)
+    public void groupBy(GroupsState state) throws Exception {
+        var groups = state.groups;
+        source().groupBy(groups, x -> x % groups, group -> childFlow -> childFlow).runDrain();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ELEMENTS)
+    public void grouped() throws Exception {
+        source().grouped(100).runDrain();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ELEMENTS)
+    public void groupedWithin() throws Exception {
+        // the time window is long enough, so that the groups are always full
+        source().groupedWithin(100, Duration.ofSeconds(1)).runDrain();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ELEMENTS)
+    public void merge() throws Exception {
+        var half = Flows.range(1, ELEMENTS / 2, 1);
+        half.merge(Flows.range(1, ELEMENTS / 2, 1), false, false).runDrain();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ELEMENTS)
+    public void zip() throws Exception {
+        source().zip(source()).runDrain();
+    }
+}
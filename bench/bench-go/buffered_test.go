@@ -0,0 +1,25 @@
+package main
+
+import (
+	"fmt"
+	"testing"
+)
+
+// go test -bench=Buffered -benchtime=100000000x -count 5
+func BenchmarkBuffered(b *testing.B) {
+	for _, capacity := range []int{16, 100} {
+		b.Run(fmt.Sprintf("capacity=%d", capacity), func(b *testing.B) {
+			c := make(chan int, capacity)
+
+			go func() {
+				for i := 0; i < b.N; i++ {
+					c <- 63
+				}
+			}()
+
+			for i := 0; i < b.N; i++ {
+				<-c
+			}
+		})
+	}
+}
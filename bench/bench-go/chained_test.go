@@ -0,0 +1,54 @@
+package main
+
+import (
+	"fmt"
+	"sync"
+	"testing"
+)
+
+// same parameters as in the java benchmark
+const chainLength = 10000
+
+// go test -bench=Chained -benchtime=1000000000x -count 5
+func BenchmarkChained(b *testing.B) {
+	for _, capacity := range []int{0, 16, 100} {
+		b.Run(fmt.Sprintf("capacity=%d", capacity), func(b *testing.B) {
+			// we want to measure the amount of time a send-receive pair takes
+			elements := b.N / chainLength
+
+			channels := make([]chan int, chainLength)
+			for i := range channels {
+				channels[i] = make(chan int, capacity)
+			}
+
+			var wg sync.WaitGroup
+			wg.Add(chainLength + 1)
+
+			go func() {
+				defer wg.Done()
+				for j := 0; j < elements; j++ {
+					channels[0] <- 63
+				}
+			}()
+
+			for t := 1; t < chainLength; t++ {
+				in, out := channels[t-1], channels[t]
+				go func() {
+					defer wg.Done()
+					for j := 0; j < elements; j++ {
+						out <- <-in
+					}
+				}()
+			}
+
+			go func() {
+				defer wg.Done()
+				for j := 0; j < elements; j++ {
+					<-channels[chainLength-1]
+				}
+			}()
+
+			wg.Wait()
+		})
+	}
+}
@@ -1,38 +1,43 @@
 package main
 
 import (
+	"fmt"
 	"sync"
 	"testing"
 )
 
-// go test -bench=. -benchtime=1000000000x -count 5
-func BenchmarkParallel(b *testing.B) {
-	const capacity = 16
-	const parallelism = 10000
-
-	elementsPerChannel := b.N / parallelism
-
-	var wg sync.WaitGroup
-
-	for i := 0; i < parallelism; i++ {
-		c := make(chan int, capacity)
+// same parameters as in the java benchmark
+const parallelism = 10000
 
-		wg.Add(1)
-		go func() {
-			defer wg.Done()
-			for j := 0; j < elementsPerChannel; j++ {
-				c <- 91
+// go test -bench=Parallel -benchtime=1000000000x -count 5
+func BenchmarkParallel(b *testing.B) {
+	for _, capacity := range []int{0, 16, 100} {
+		b.Run(fmt.Sprintf("capacity=%d", capacity), func(b *testing.B) {
+			elementsPerChannel := b.N / parallelism
+
+			var wg sync.WaitGroup
+
+			for i := 0; i < parallelism; i++ {
+				c := make(chan int, capacity)
+
+				wg.Add(1)
+				go func() {
+					defer wg.Done()
+					for j := 0; j < elementsPerChannel; j++ {
+						c <- 91
+					}
+				}()
+
+				wg.Add(1)
+				go func() {
+					defer wg.Done()
+					for j := 0; j < elementsPerChannel; j++ {
+						<-c
+					}
+				}()
 			}
-		}()
 
-		wg.Add(1)
-		go func() {
-			defer wg.Done()
-			for j := 0; j < elementsPerChannel; j++ {
-				<-c
-			}
-		}()
+			wg.Wait()
+		})
 	}
-
-	wg.Wait()
 }
@@ -0,0 +1,20 @@
+package main
+
+import (
+	"testing"
+)
+
+// go test -bench=Rendezvous -benchtime=100000000x -count 5
+func BenchmarkRendezvous(b *testing.B) {
+	c := make(chan int)
+
+	go func() {
+		for i := 0; i < b.N; i++ {
+			c <- 63
+		}
+	}()
+
+	for i := 0; i < b.N; i++ {
+		<-c
+	}
+}
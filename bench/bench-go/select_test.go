@@ -0,0 +1,49 @@
+package main
+
+import (
+	"testing"
+)
+
+// go test -bench=Select -benchtime=100000000x -count 5
+func BenchmarkSelect(b *testing.B) {
+	b.Run("clauses=1", func(b *testing.B) {
+		c := make(chan int)
+
+		go func() {
+			for i := 0; i < b.N; i++ {
+				c <- 63
+			}
+		}()
+
+		for i := 0; i < b.N; i++ {
+			select {
+			case <-c:
+			}
+		}
+	})
+
+	b.Run("clauses=2", func(b *testing.B) {
+		c1 := make(chan int)
+		c2 := make(chan int)
+		elements := b.N / 2
+
+		go func() {
+			for i := 0; i < elements; i++ {
+				c1 <- 63
+			}
+		}()
+
+		go func() {
+			for i := 0; i < elements; i++ {
+				c2 <- 63
+			}
+		}()
+
+		for i := 0; i < 2*elements; i++ {
+			select {
+			case <-c1:
+			case <-c2:
+			}
+		}
+	})
+}
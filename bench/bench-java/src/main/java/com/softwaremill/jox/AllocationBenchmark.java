@@ -0,0 +1,131 @@
+package com.softwaremill.jox;
+
+import static com.softwaremill.jox.Select.select;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Allocation tests of channel operations and selects. The interesting metric is {@code
+ * gc.alloc.rate.norm} (bytes per operation), reported by the GC profiler, hence this should be run
+ * using {@code -prof gc}, or using {@link #main(String[])}, which adds the profiler.
+ *
+ * <p>The send-receive pairs on buffered and unlimited channels are run in a single thread, so that
+ * they never suspend: the only allocations should be the segments, amortized over their cells. See
+ * also {@code ChannelAllocationTest}, which fails if that's no longer the case.
+ */
+@Warmup(iterations = 3, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AllocationBenchmark {
+    private static final int OPERATIONS_PER_INVOCATION = 1_000_000;
+
+    private static final Object VALUE = new Object();
+
+    @State(Scope.Thread)
+    public static class ChannelState {
+        @Param({"buffered-1", "buffered-16", "buffered-1000", "unlimited"})
+        public String channel;
+
+        Channel<Object> ch;
+
+        @Setup
+        public void setup() {
+            ch =
+                    channel.equals("unlimited")
+                            ? Channel.newUnlimitedChannel()
+                            : Channel.newBufferedChannel(
+                                    Integer.parseInt(channel.substring("buffered-".length())));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class SelectState {
+        @Param({"1", "2", "4", "8"})
+        public int clauses;
+
+        Channel<Object>[] chs;
+
+        @SuppressWarnings("unchecked")
+        @Setup
+        public void setup() {
+            chs = new Channel[clauses];
+            for (int i = 0; i < clauses; i++) {
+                chs[i] = Channel.newBufferedChannel(16);
+            }
+        }
+    }
+
+    @Benchmark
+    public Object sendReceive(ChannelState state) throws InterruptedException {
+        state.ch.send(VALUE);
+        return state.ch.receive();
+    }
+
+    @Benchmark
+    public Object sendReceiveOrClosed(ChannelState state) throws InterruptedException {
+        state.ch.sendOrClosed(VALUE);
+        return state.ch.receiveOrClosed();
+    }
+
+    @Benchmark
+    public Object selectReceive(SelectState state) throws InterruptedException {
+        var chs = state.chs;
+        // only the last clause can be satisfied, so that all clauses are inspected
+        chs[chs.length - 1].send(VALUE);
+        var clauses = new SelectClause<?>[chs.length];
+        for (int i = 0; i < chs.length; i++) {
+            clauses[i] = chs[i].receiveClause();
+        }
+        return select(clauses);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS_PER_INVOCATION)
+    public void rendezvousHandoff() throws InterruptedException {
+        var ch = Channel.newRendezvousChannel();
+        var t1 =
+                Thread.startVirtualThread(
+                        () -> {
+                            for (int i = 0; i < OPERATIONS_PER_INVOCATION; i++) {
+                                try {
+                                    ch.send(VALUE);
+                                } catch (InterruptedException e) {
+                                    throw new RuntimeException(e);
+                                }
+                            }
+                        });
+
+        var t2 =
+                Thread.startVirtualThread(
+                        () -> {
+                            for (int i = 0; i < OPERATIONS_PER_INVOCATION; i++) {
+                                try {
+                                    ch.receive();
+                                } catch (InterruptedException e) {
+                                    throw new RuntimeException(e);
+                                }
+                            }
+                        });
+
+        t1.join();
+        t2.join();
+    }
+
+    /** Runs the allocation benchmarks with the GC profiler. */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(
+                        new OptionsBuilder()
+                                .include(AllocationBenchmark.class.getSimpleName())
+                                .addProfiler(GCProfiler.class)
+                                .build())
+                .run();
+    }
+}
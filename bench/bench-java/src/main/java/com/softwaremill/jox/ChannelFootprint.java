@@ -0,0 +1,63 @@
+package com.softwaremill.jox;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+/**
+ * Reports the retained heap size of idle channels (created, but never used), for the rendezvous,
+ * buffered and unlimited variants. For comparison, the size of channels after their first
+ * operation (when the first segment is created) is reported as well.
+ *
+ * <p>Run with: {@code java -cp target/benchmarks.jar com.softwaremill.jox.ChannelFootprint
+ * [count]}. Best run with a fixed heap size, e.g. {@code -Xms2g -Xmx2g}.
+ */
+public class ChannelFootprint {
+    public static void main(String[] args) throws InterruptedException {
+        var count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+
+        report("rendezvous", count, Channel::newRendezvousChannel);
+        report("buffered(16)", count, () -> Channel.newBufferedChannel(16));
+        report("buffered(100)", count, () -> Channel.newBufferedChannel(100));
+        report("unlimited", count, Channel::newUnlimitedChannel);
+    }
+
+    private static void report(String name, int count, Supplier<Channel<Object>> create)
+            throws InterruptedException {
+        // warming up, so that class loading & initialization isn't measured
+        measure(count / 10, create, false);
+
+        var idle = measure(count, create, false);
+        var used = measure(count, create, true);
+        System.out.printf(
+                "%-14s idle: %6d bytes/channel, after first operation: %6d bytes/channel%n",
+                name, idle, used);
+    }
+
+    private static long measure(int count, Supplier<Channel<Object>> create, boolean use)
+            throws InterruptedException {
+        var channels = new Channel<?>[count];
+        var before = usedHeapAfterGc();
+        for (int i = 0; i < count; i++) {
+            var c = create.get();
+            if (use) {
+                // doesn't leave any values in the channel, but creates the first segment
+                c.done();
+            }
+            channels[i] = c;
+        }
+        var after = usedHeapAfterGc();
+        // keeping the channels reachable until the measurement is done
+        if (channels[count - 1] == null) throw new IllegalStateException();
+        // the array of references is allocated before the first measurement, so it's not included
+        return (after - before) / count;
+    }
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        var memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,79 @@
+package com.softwaremill.jox;
+
+import java.util.concurrent.*;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Send-receive test with a large number of senders, sending to a single buffered channel, which is
+ * drained by a smaller number of receivers. Compares a plain {@link Channel} with a {@link
+ * CombiningChannel}.
+ */
+@Warmup(iterations = 3, time = 4000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 4000, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class ContendedBenchmark {
+    @Param({"16", "100"})
+    public int capacity;
+
+    @Param({"8", "32", "64"})
+    public int senders;
+
+    @Param({"4"})
+    public int receivers;
+
+    private static final int OPERATIONS_PER_INVOCATION = 1_000_000;
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS_PER_INVOCATION)
+    public void channel() throws InterruptedException {
+        run(Channel.newBufferedChannel(capacity));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS_PER_INVOCATION)
+    public void combiningChannel() throws InterruptedException {
+        run(new CombiningChannel<>(Channel.newBufferedChannel(capacity)));
+    }
+
+    private <C extends Source<Integer> & Sink<Integer>> void run(C ch)
+            throws InterruptedException {
+        // we want to measure the amount of time a send-receive pair takes
+        int elementsPerSender = OPERATIONS_PER_INVOCATION / senders;
+        int elementsPerReceiver = elementsPerSender * senders / receivers;
+
+        var latch = new CountDownLatch(receivers);
+
+        for (int t = 0; t < senders; t++) {
+            Thread.startVirtualThread(
+                    () -> {
+                        for (int i = 0; i < elementsPerSender; i++) {
+                            try {
+                                ch.send(91);
+                            } catch (InterruptedException e) {
+                                throw new RuntimeException(e);
+                            }
+                        }
+                    });
+        }
+
+        for (int t = 0; t < receivers; t++) {
+            Thread.startVirtualThread(
+                    () -> {
+                        for (int i = 0; i < elementsPerReceiver; i++) {
+                            try {
+                                ch.receive();
+                            } catch (InterruptedException e) {
+                                throw new RuntimeException(e);
+                            }
+                        }
+                        latch.countDown();
+                    });
+        }
+
+        latch.await();
+    }
+}
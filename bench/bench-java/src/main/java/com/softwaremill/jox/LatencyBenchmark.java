@@ -0,0 +1,193 @@
+package com.softwaremill.jox;
+
+import java.util.concurrent.*;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+
+/**
+ * Multi-producer, multi-consumer handoff test, comparing {@link Channel}s with built-in Java queues.
+ * The score is the average time per handoff; additionally, the latency of each handoff (from
+ * before the send, until after the receive) is recorded using a {@link LatencyHistogram}, and the
+ * p50/p99/p99.9 percentiles (in nanoseconds) from the measurement iterations are printed at the end
+ * of each trial.
+ *
+ * <p>The {@code queue} parameter specifies both the implementation, and the capacity; {@code
+ * linkedTransferQueue-0} uses {@link LinkedTransferQueue#transfer(Object)} to send. The full
+ * parameter space is large; typically, some parameters should be fixed using {@code -p}, e.g.
+ * {@code -p threads=virtual -p producers=1,16 -p consumers=1,16}.
+ */
+@Warmup(iterations = 3, time = 3000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 3000, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class LatencyBenchmark {
+    @Param({"1", "4", "16", "64"})
+    public int producers;
+
+    @Param({"1", "4", "16", "64"})
+    public int consumers;
+
+    @Param({
+        "channel-0",
+        "channel-16",
+        "channel-1000",
+        "channel-unlimited",
+        "arrayBlockingQueue-16",
+        "arrayBlockingQueue-1000",
+        "linkedTransferQueue-0",
+        "linkedTransferQueue-unlimited",
+        "synchronousQueue-0"
+    })
+    public String queue;
+
+    @Param({"virtual", "platform"})
+    public String threads;
+
+    private static final int OPERATIONS_PER_INVOCATION = 100_000;
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private boolean measuring;
+
+    @Setup(Level.Iteration)
+    public void setupIteration(IterationParams params) {
+        measuring = params.getType() == IterationType.MEASUREMENT;
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        System.out.println();
+        System.out.printf(
+                "Handoff latency [ns] (queue=%s, producers=%d, consumers=%d, threads=%s): %s%n",
+                queue, producers, consumers, threads, histogram);
+        histogram.reset();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS_PER_INVOCATION)
+    public void handoff() throws InterruptedException {
+        var handoff = createHandoff(queue);
+        var factory =
+                threads.equals("virtual")
+                        ? Thread.ofVirtual().factory()
+                        : Thread.ofPlatform().factory();
+
+        // we want to measure the amount of time a send-receive pair takes
+        int elementsPerProducer = OPERATIONS_PER_INVOCATION / producers;
+        int elements = elementsPerProducer * producers;
+
+        var all = new Thread[producers + consumers];
+        for (int t = 0; t < producers; t++) {
+            all[t] =
+                    factory.newThread(
+                            () -> {
+                                for (int i = 0; i < elementsPerProducer; i++) {
+                                    try {
+                                        handoff.put(System.nanoTime());
+                                    } catch (InterruptedException e) {
+                                        throw new RuntimeException(e);
+                                    }
+                                }
+                            });
+        }
+
+        var consumerHistograms = new LatencyHistogram[consumers];
+        for (int t = 0; t < consumers; t++) {
+            var h = new LatencyHistogram();
+            consumerHistograms[t] = h;
+            // the first consumer receives the remainder
+            var elementsPerConsumer = elements / consumers + (t == 0 ? elements % consumers : 0);
+            all[producers + t] =
+                    factory.newThread(
+                            () -> {
+                                for (int i = 0; i < elementsPerConsumer; i++) {
+                                    try {
+                                        var sentAt = handoff.take();
+                                        h.record(System.nanoTime() - sentAt);
+                                    } catch (InterruptedException e) {
+                                        throw new RuntimeException(e);
+                                    }
+                                }
+                            });
+        }
+
+        for (var t : all) t.start();
+        for (var t : all) t.join();
+
+        if (measuring) {
+            for (var h : consumerHistograms) histogram.add(h);
+        }
+    }
+
+    private interface Handoff {
+        void put(Long value) throws InterruptedException;
+
+        Long take() throws InterruptedException;
+    }
+
+    private static Handoff createHandoff(String queue) {
+        var separator = queue.lastIndexOf('-');
+        var type = queue.substring(0, separator);
+        var capacityStr = queue.substring(separator + 1);
+        var capacity = capacityStr.equals("unlimited") ? -1 : Integer.parseInt(capacityStr);
+
+        return switch (type) {
+            case "channel" -> {
+                Channel<Long> ch =
+                        switch (capacity) {
+                            case -1 -> Channel.newUnlimitedChannel();
+                            case 0 -> Channel.newRendezvousChannel();
+                            default -> Channel.newBufferedChannel(capacity);
+                        };
+                yield new Handoff() {
+                    @Override
+                    public void put(Long value) throws InterruptedException {
+                        ch.send(value);
+                    }
+
+                    @Override
+                    public Long take() throws InterruptedException {
+                        return ch.receive();
+                    }
+                };
+            }
+            case "arrayBlockingQueue" -> blockingQueue(new ArrayBlockingQueue<>(capacity));
+            case "synchronousQueue" -> blockingQueue(new SynchronousQueue<>());
+            case "linkedTransferQueue" -> {
+                var q = new LinkedTransferQueue<Long>();
+                if (capacity == -1) {
+                    yield blockingQueue(q);
+                }
+                yield new Handoff() {
+                    @Override
+                    public void put(Long value) throws InterruptedException {
+                        q.transfer(value);
+                    }
+
+                    @Override
+                    public Long take() throws InterruptedException {
+                        return q.take();
+                    }
+                };
+            }
+            default -> throw new IllegalArgumentException("Unknown queue: " + queue);
+        };
+    }
+
+    private static Handoff blockingQueue(BlockingQueue<Long> q) {
+        return new Handoff() {
+            @Override
+            public void put(Long value) throws InterruptedException {
+                q.put(value);
+            }
+
+            @Override
+            public Long take() throws InterruptedException {
+                return q.take();
+            }
+        };
+    }
+}
@@ -0,0 +1,99 @@
+package com.softwaremill.jox;
+
+import java.util.Arrays;
+
+/**
+ * A log-linear histogram of non-negative values (e.g. latencies in nanoseconds). Values below 32
+ * are recorded exactly; larger values are grouped in buckets, whose width is 1/32 of their lower
+ * bound, hence the relative error of the reported percentiles is at most ~3%.
+ *
+ * <p>Recording is allocation-free. Not thread-safe: each recording thread should use its own
+ * histogram, which can then be merged using {@link #add(LatencyHistogram)}.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final long[] counts = new long[(64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS];
+    private long totalCount;
+    private long maxValue;
+
+    public void record(long value) {
+        if (value < 0) value = 0;
+        counts[index(value)]++;
+        totalCount++;
+        if (value > maxValue) maxValue = value;
+    }
+
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        maxValue = Math.max(maxValue, other.maxValue);
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        maxValue = 0;
+    }
+
+    public long totalCount() {
+        return totalCount;
+    }
+
+    public long maxValue() {
+        return maxValue;
+    }
+
+    /**
+     * @param percentile Between 0 and 100.
+     * @return The (approximate) value, below or at which the given percentage of recorded values
+     *     fall; 0, if nothing was recorded.
+     */
+    public long valueAtPercentile(double percentile) {
+        if (totalCount == 0) return 0;
+
+        var target = Math.max(1, (long) Math.ceil(percentile / 100.0 * totalCount));
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            if (cumulative >= target) {
+                // the highest value in the bucket, but not more than the highest recorded one
+                return Math.min(lowerBound(i + 1) - 1, maxValue);
+            }
+        }
+        return maxValue;
+    }
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        var shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        // value >>> shift is in [SUB_BUCKETS, 2 * SUB_BUCKETS)
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    static long lowerBound(int index) {
+        if (index < SUB_BUCKETS) return index;
+        var shift = index / SUB_BUCKETS - 1;
+        return (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+    }
+
+    /**
+     * @return The p50, p99, p99.9 percentiles and the max value.
+     */
+    @Override
+    public String toString() {
+        return "p50="
+                + valueAtPercentile(50)
+                + " p99="
+                + valueAtPercentile(99)
+                + " p99.9="
+                + valueAtPercentile(99.9)
+                + " max="
+                + maxValue
+                + " count="
+                + totalCount;
+    }
+}
@@ -0,0 +1,273 @@
+package com.softwaremill.jox;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A soak test of segment removal under cancellation-heavy workloads. For each channel type
+ * (rendezvous, buffered, unlimited), values flow from producers to consumers, while "victim"
+ * threads continuously start sends and receives on the same channel, which are interrupted after a
+ * random, short delay - exercising the interrupted sender and receiver paths of segments. Platform
+ * threads are used, so that the producers can't starve the victims of carrier threads.
+ *
+ * <p>Every sampling interval, the throughput, the number of interrupts, the number of segments
+ * retained by each channel and the used heap (after a GC) are reported. A leak is flagged (and the
+ * process exits with a non-zero code) if, in the last quarter of the run, the number of retained
+ * segments or the used heap grows significantly when compared to the first quarter.
+ *
+ * <p>The segment size ({@code JOX_SEGMENT_SIZE}) is read once, when the channel classes are
+ * initialized, hence each segment size is run in a separate JVM. Run with: {@code java -cp
+ * target/benchmarks.jar com.softwaremill.jox.SegmentChurnSoak [durationSeconds]
+ * [segmentSizes]}, e.g. {@code ... SegmentChurnSoak 600 4,8,32}.
+ */
+public class SegmentChurnSoak {
+    private static final int SAMPLE_INTERVAL_MS = 5_000;
+    private static final int PRODUCERS = 4;
+    private static final int CONSUMERS = 4;
+    private static final int VICTIMS = 16;
+
+    /** Extra segments, on top of those needed by the buffer and waiting operations. */
+    private static final int SEGMENT_SLACK = 8;
+
+    private static final long HEAP_SLACK_BYTES = 32 * 1024 * 1024;
+
+    public static void main(String[] args) throws Exception {
+        var durationSeconds = args.length > 0 ? Integer.parseInt(args[0]) : 60;
+        if (args.length > 1 && args[1].equals("--run")) {
+            System.exit(run(durationSeconds) ? 0 : 2);
+        }
+
+        var segmentSizes = args.length > 1 ? args[1].split(",") : new String[] {"4", "8", "32"};
+        var leaks = new ArrayList<String>();
+        for (var segmentSize : segmentSizes) {
+            System.out.println("=== JOX_SEGMENT_SIZE=" + segmentSize);
+            var javaBin = ProcessHandle.current().info().command().orElse("java");
+            var pb =
+                    new ProcessBuilder(
+                                    javaBin,
+                                    "-Xmx1g",
+                                    "-cp",
+                                    System.getProperty("java.class.path"),
+                                    SegmentChurnSoak.class.getName(),
+                                    Integer.toString(durationSeconds),
+                                    "--run")
+                            .inheritIO();
+            pb.environment().put("JOX_SEGMENT_SIZE", segmentSize);
+            var exitCode = pb.start().waitFor();
+            if (exitCode != 0) {
+                leaks.add(segmentSize + " (exit code " + exitCode + ")");
+            }
+        }
+
+        if (leaks.isEmpty()) {
+            System.out.println("No leaks detected");
+        } else {
+            System.out.println("Leaks suspected for segment sizes: " + leaks);
+            System.exit(1);
+        }
+    }
+
+    private static boolean run(int durationSeconds) throws InterruptedException {
+        var scenarios =
+                List.of(
+                        new Scenario("rendezvous", Channel.newRendezvousChannel()),
+                        new Scenario("buffered(16)", Channel.newBufferedChannel(16)),
+                        new Scenario("unlimited", Channel.newUnlimitedChannel()));
+
+        var threads = new ArrayList<Thread>();
+        for (var scenario : scenarios) {
+            threads.addAll(scenario.start());
+        }
+
+        var samples = new ArrayList<Sample>();
+        var deadline = System.nanoTime() + durationSeconds * 1_000_000_000L;
+        var last = System.nanoTime();
+        while (System.nanoTime() < deadline) {
+            Thread.sleep(SAMPLE_INTERVAL_MS);
+            var now = System.nanoTime();
+            var heap = usedHeapAfterGc();
+            var sample = new Sample(heap, new long[scenarios.size()]);
+            var sb = new StringBuilder();
+            sb.append(String.format("heap: %5d MB", heap / 1024 / 1024));
+            for (int i = 0; i < scenarios.size(); i++) {
+                var scenario = scenarios.get(i);
+                var seconds = (now - last) / 1e9;
+                var excess = scenario.excessSegments();
+                sample.excessSegments[i] = excess;
+                sb.append(
+                        String.format(
+                                " | %s: %,9.0f msg/s, %,8.0f interrupts/s, %4d segments (%d excess)",
+                                scenario.name,
+                                scenario.received.sumThenReset() / seconds,
+                                scenario.interrupted.sumThenReset() / seconds,
+                                scenario.retainedSegments,
+                                excess));
+            }
+            System.out.println(sb);
+            samples.add(sample);
+            last = now;
+        }
+
+        for (var scenario : scenarios) scenario.stopped = true;
+        for (var t : threads) t.interrupt();
+        for (var t : threads) t.join();
+
+        return checkForLeaks(scenarios, samples);
+    }
+
+    /**
+     * @return {@code true}, if no leaks are suspected.
+     */
+    private static boolean checkForLeaks(List<Scenario> scenarios, List<Sample> samples) {
+        if (samples.size() < 4) {
+            System.out.println("Not enough samples to check for leaks, run for longer");
+            return true;
+        }
+
+        var quarter = samples.size() / 4;
+        var first = samples.subList(0, quarter);
+        var lastQuarter = samples.subList(samples.size() - quarter, samples.size());
+
+        var ok = true;
+        var firstHeap = first.stream().mapToLong(Sample::heap).max().orElse(0);
+        var lastHeap = lastQuarter.stream().mapToLong(Sample::heap).min().orElse(0);
+        if (lastHeap > 2 * firstHeap + HEAP_SLACK_BYTES) {
+            System.out.printf(
+                    "LEAK SUSPECTED: used heap grew from %d MB to %d MB%n",
+                    firstHeap / 1024 / 1024, lastHeap / 1024 / 1024);
+            ok = false;
+        }
+
+        for (int i = 0; i < scenarios.size(); i++) {
+            var idx = i;
+            var firstSegments = first.stream().mapToLong(s -> s.excessSegments[idx]).max();
+            var lastSegments = lastQuarter.stream().mapToLong(s -> s.excessSegments[idx]).min();
+            if (lastSegments.orElse(0) > 2 * firstSegments.orElse(0) + SEGMENT_SLACK) {
+                System.out.printf(
+                        "LEAK SUSPECTED: %s retains %d excess segments, up from %d%n",
+                        scenarios.get(i).name, lastSegments.orElse(0), firstSegments.orElse(0));
+                ok = false;
+            }
+        }
+
+        return ok;
+    }
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        var memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private record Sample(long heap, long[] excessSegments) {}
+
+    private static class Scenario {
+        final String name;
+        final Channel<Integer> channel;
+        final LongAdder received = new LongAdder();
+        final LongAdder interrupted = new LongAdder();
+        volatile boolean stopped = false;
+        long retainedSegments;
+
+        Scenario(String name, Channel<Integer> channel) {
+            this.name = name;
+            this.channel = channel;
+        }
+
+        /**
+         * @return The number of retained segments, which aren't needed to hold the buffered values
+         *     and the waiting operations.
+         */
+        long excessSegments() {
+            var retained = channel.retainedSegmentCount();
+            retainedSegments = retained;
+            var cells = channel.bufferedCount() + PRODUCERS + CONSUMERS + VICTIMS;
+            if (channel.capacity() > 0) cells += channel.capacity();
+            var needed = (cells + Segment.SEGMENT_SIZE - 1) / Segment.SEGMENT_SIZE;
+            return Math.max(0, retained - needed - 2);
+        }
+
+        List<Thread> start() {
+            var threads = new ArrayList<Thread>();
+            for (int i = 0; i < PRODUCERS; i++) {
+                threads.add(
+                        Thread.ofPlatform()
+                                .start(
+                                        () -> {
+                                            try {
+                                                var unlimited = channel.capacity() < 0;
+                                                while (true) {
+                                                    // not overrunning the consumers
+                                                    if (unlimited
+                                                            && channel.bufferedCount() > 1_000) {
+                                                        Thread.sleep(1);
+                                                    } else {
+                                                        channel.send(1);
+                                                    }
+                                                }
+                                            } catch (InterruptedException e) {
+                                                // done
+                                            }
+                                        }));
+            }
+            for (int i = 0; i < CONSUMERS; i++) {
+                threads.add(
+                        Thread.ofPlatform()
+                                .start(
+                                        () -> {
+                                            try {
+                                                while (true) {
+                                                    channel.receive();
+                                                    received.increment();
+                                                }
+                                            } catch (InterruptedException e) {
+                                                // done
+                                            }
+                                        }));
+            }
+            var victims = new Thread[VICTIMS];
+            for (int i = 0; i < VICTIMS; i++) {
+                // sends to unlimited channels never suspend, so they can't be interrupted
+                var isSender = i % 2 == 0 && channel.capacity() >= 0;
+                victims[i] = Thread.ofPlatform().start(() -> runVictim(isSender));
+                threads.add(victims[i]);
+            }
+            threads.add(Thread.ofPlatform().start(() -> interruptVictims(victims)));
+            return threads;
+        }
+
+        /**
+         * Repeatedly sends or receives; interrupts are counted and ignored, until the scenario is
+         * stopped.
+         */
+        private void runVictim(boolean isSender) {
+            while (!stopped) {
+                try {
+                    if (isSender) {
+                        channel.send(2);
+                    } else {
+                        channel.receive();
+                    }
+                } catch (InterruptedException e) {
+                    interrupted.increment();
+                }
+            }
+        }
+
+        /** Interrupts a random victim, with a random delay of up to 100us between interrupts. */
+        private void interruptVictims(Thread[] victims) {
+            var random = ThreadLocalRandom.current();
+            while (!Thread.currentThread().isInterrupted()) {
+                LockSupport.parkNanos(random.nextLong(100_000));
+                victims[random.nextInt(victims.length)].interrupt();
+            }
+        }
+    }
+}
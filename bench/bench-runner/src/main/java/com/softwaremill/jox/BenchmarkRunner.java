@@ -0,0 +1,439 @@
+package com.softwaremill.jox;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Runs the matching channel benchmarks of jox ({@code bench-java}), Kotlin coroutines ({@code
+ * bench-kotlin}) and Go ({@code bench-go}) with the same settings, and writes a single report, as
+ * {@code report.json} and {@code report.md}, with the time (ns/op) and throughput (ops/s) of each
+ * scenario, in each language. An operation is a single send-receive pair (or a select).
+ *
+ * <p>The JMH benchmarks are run using the uber-jars, which should be built beforehand using {@code
+ * mvn package} in the {@code bench} directory; the Go benchmarks are run using {@code go test}.
+ *
+ * <p>Run from the {@code bench} directory with: {@code java -cp
+ * bench-runner/target/bench-runner-1.1.1.jar com.softwaremill.jox.BenchmarkRunner [options]}. The
+ * options are:
+ *
+ * <ul>
+ *   <li>{@code --languages java,kotlin,go}
+ *   <li>{@code --scenarios rendezvous,buffered,chained,parallel,select}
+ *   <li>{@code --warmup 3}: warmup iterations (JMH only)
+ *   <li>{@code --iterations 10}: measurement iterations; for Go, the number of runs
+ *   <li>{@code --time 5}: seconds per iteration
+ *   <li>{@code --forks 1}: JMH forks
+ *   <li>{@code --out report}: the directory, to which the report is written
+ * </ul>
+ */
+public class BenchmarkRunner {
+    /**
+     * @param name The name of a JMH benchmark ({@code Class.method}), or of a Go benchmark.
+     * @param variant Prepended to the parameters of a JMH benchmark, to form the variant; {@code
+     *     null}, if there's nothing to prepend. Go benchmarks use the names of their sub-benchmarks
+     *     as variants.
+     */
+    private record Benchmark(String name, String variant) {}
+
+    private record Scenario(
+            String name, List<Benchmark> java, List<Benchmark> kotlin, List<Benchmark> go) {
+        List<Benchmark> benchmarks(String language) {
+            return switch (language) {
+                case "java" -> java;
+                case "kotlin" -> kotlin;
+                case "go" -> go;
+                default -> throw new IllegalArgumentException("Unknown language: " + language);
+            };
+        }
+    }
+
+    /**
+     * @param variant For example {@code capacity=16}, or an empty string.
+     */
+    record Result(String scenario, String variant, String language, double nsPerOp) {
+        double opsPerSecond() {
+            return 1_000_000_000d / nsPerOp;
+        }
+    }
+
+    private static final List<String> LANGUAGES = List.of("java", "kotlin", "go");
+
+    private static final List<Scenario> SCENARIOS =
+            List.of(
+                    new Scenario(
+                            "rendezvous",
+                            List.of(new Benchmark("RendezvousBenchmark.channel", null)),
+                            List.of(
+                                    new Benchmark(
+                                            "RendezvousKotlinBenchmark.channel_defaultDispatcher",
+                                            null)),
+                            List.of(new Benchmark("BenchmarkRendezvous", null))),
+                    new Scenario(
+                            "buffered",
+                            List.of(new Benchmark("BufferedBenchmark.channel", null)),
+                            List.of(
+                                    new Benchmark(
+                                            "BufferedKotlinBenchmark.channel_defaultDispatcher",
+                                            null)),
+                            List.of(new Benchmark("BenchmarkBuffered", null))),
+                    new Scenario(
+                            "chained",
+                            List.of(new Benchmark("ChainedBenchmark.channelChain", null)),
+                            List.of(
+                                    new Benchmark(
+                                            "ChainedKotlinBenchmark.channelChain_defaultDispatcher",
+                                            null)),
+                            List.of(new Benchmark("BenchmarkChained", null))),
+                    new Scenario(
+                            "parallel",
+                            List.of(new Benchmark("ParallelBenchmark.parallelChannels", null)),
+                            List.of(
+                                    new Benchmark(
+                                            "ParallelKotlinBenchmark"
+                                                    + ".parallelChannels_defaultDispatcher",
+                                            null)),
+                            List.of(new Benchmark("BenchmarkParallel", null))),
+                    new Scenario(
+                            "select",
+                            List.of(
+                                    new Benchmark(
+                                            "SelectBenchmark.selectWithSingleClause", "clauses=1"),
+                                    new Benchmark(
+                                            "SelectBenchmark.selectWithTwoClauses", "clauses=2")),
+                            List.of(
+                                    new Benchmark(
+                                            "SelectKotlinBenchmark"
+                                                    + ".selectWithSingleClause_defaultDispatcher",
+                                            "clauses=1"),
+                                    new Benchmark(
+                                            "SelectKotlinBenchmark"
+                                                    + ".selectWithTwoClauses_defaultDispatcher",
+                                            "clauses=2")),
+                            List.of(new Benchmark("BenchmarkSelect", null))));
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        var options = parseOptions(args);
+        var languages = options.getOrDefault("languages", String.join(",", LANGUAGES)).split(",");
+        var scenarioNames =
+                Set.of(
+                        options.getOrDefault(
+                                        "scenarios",
+                                        String.join(
+                                                ",",
+                                                SCENARIOS.stream().map(Scenario::name).toList()))
+                                .split(","));
+        var scenarios = SCENARIOS.stream().filter(s -> scenarioNames.contains(s.name())).toList();
+        var warmup = Integer.parseInt(options.getOrDefault("warmup", "3"));
+        var iterations = Integer.parseInt(options.getOrDefault("iterations", "10"));
+        var time = Integer.parseInt(options.getOrDefault("time", "5"));
+        var forks = Integer.parseInt(options.getOrDefault("forks", "1"));
+        var out = Path.of(options.getOrDefault("out", "report"));
+
+        var results = new ArrayList<Result>();
+        for (var language : languages) {
+            System.out.println("=== Running " + language + " benchmarks");
+            switch (language) {
+                case "java", "kotlin" ->
+                        results.addAll(
+                                runJmh(
+                                        language,
+                                        Path.of("bench-" + language, "target", "benchmarks.jar"),
+                                        scenarios,
+                                        warmup,
+                                        iterations,
+                                        time,
+                                        forks));
+                case "go" -> results.addAll(runGo(scenarios, iterations, time));
+                default -> throw new IllegalArgumentException("Unknown language: " + language);
+            }
+        }
+
+        Files.createDirectories(out);
+        Files.writeString(out.resolve("report.json"), toJson(results));
+        Files.writeString(out.resolve("report.md"), toMarkdown(results, List.of(languages)));
+        System.out.println("Report written to " + out.toAbsolutePath());
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        var options = new HashMap<String, String>();
+        for (int i = 0; i < args.length; i += 2) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Expected --option value, got: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    // ****
+    // JMH
+    // ****
+
+    private static List<Result> runJmh(
+            String language,
+            Path jar,
+            List<Scenario> scenarios,
+            int warmup,
+            int iterations,
+            int time,
+            int forks)
+            throws IOException, InterruptedException {
+        if (!Files.exists(jar)) {
+            throw new IllegalStateException(jar + " not found, run `mvn package` first");
+        }
+
+        var csv = Files.createTempFile("jmh-" + language, ".csv");
+        var command = new ArrayList<>(List.of("java", "-jar", jar.toString()));
+        for (var scenario : scenarios) {
+            for (var benchmark : scenario.benchmarks(language)) {
+                command.add("\\." + Pattern.quote(benchmark.name()) + "$");
+            }
+        }
+        command.addAll(
+                List.of(
+                        "-wi", Integer.toString(warmup),
+                        "-i", Integer.toString(iterations),
+                        "-w", time + "s",
+                        "-r", time + "s",
+                        "-f", Integer.toString(forks),
+                        "-rf", "csv",
+                        "-rff", csv.toString()));
+        run(command, Path.of("."));
+
+        try {
+            return parseJmhCsv(language, scenarios, Files.readAllLines(csv));
+        } finally {
+            Files.deleteIfExists(csv);
+        }
+    }
+
+    /** Parses the result of running JMH with {@code -rf csv}. */
+    static List<Result> parseJmhCsv(String language, List<Scenario> scenarios, List<String> lines) {
+        var results = new ArrayList<Result>();
+        if (lines.isEmpty()) return results;
+
+        var header = parseCsvLine(lines.getFirst());
+        var nameIdx = header.indexOf("Benchmark");
+        var scoreIdx = header.indexOf("Score");
+        var unitIdx = header.indexOf("Unit");
+        for (var line : lines.subList(1, lines.size())) {
+            var row = parseCsvLine(line);
+            if (row.size() != header.size()) continue;
+            if (!row.get(unitIdx).equals("ns/op")) {
+                System.out.println("Skipping a result which is not in ns/op: " + line);
+                continue;
+            }
+
+            for (var scenario : scenarios) {
+                for (var benchmark : scenario.benchmarks(language)) {
+                    if (row.get(nameIdx).endsWith("." + benchmark.name())) {
+                        var variant = new ArrayList<String>();
+                        if (benchmark.variant() != null) variant.add(benchmark.variant());
+                        // only the capacity varies between the runs of a benchmark, the other
+                        // parameters are the same in all languages
+                        var capacityIdx = header.indexOf("Param: capacity");
+                        if (capacityIdx >= 0 && !row.get(capacityIdx).isEmpty()) {
+                            variant.add("capacity=" + row.get(capacityIdx));
+                        }
+                        results.add(
+                                new Result(
+                                        scenario.name(),
+                                        String.join(",", variant),
+                                        language,
+                                        Double.parseDouble(row.get(scoreIdx))));
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private static List<String> parseCsvLine(String line) {
+        var values = new ArrayList<String>();
+        var current = new StringBuilder();
+        var quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            var c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    // ****
+    // Go
+    // ****
+
+    private static final Pattern GO_RESULT =
+            Pattern.compile("^(Benchmark\\w+)(?:/(\\S+?))?(?:-\\d+)?\\s+\\d+\\s+([\\d.]+) ns/op.*");
+
+    private static List<Result> runGo(List<Scenario> scenarios, int iterations, int time)
+            throws IOException, InterruptedException {
+        var names = new ArrayList<String>();
+        for (var scenario : scenarios) {
+            for (var benchmark : scenario.go()) names.add(benchmark.name());
+        }
+        var output =
+                run(
+                        List.of(
+                                "go",
+                                "test",
+                                "-run=^$",
+                                "-bench=^(" + String.join("|", names) + ")$",
+                                "-benchtime=" + time + "s",
+                                "-count=" + iterations),
+                        Path.of("bench-go"));
+
+        return parseGoOutput(scenarios, output);
+    }
+
+    /** Parses the output of {@code go test -bench}, averaging the results of repeated runs. */
+    static List<Result> parseGoOutput(List<Scenario> scenarios, List<String> lines) {
+        // (scenario, variant) -> ns/op of each run
+        var runs = new LinkedHashMap<List<String>, List<Double>>();
+        for (var line : lines) {
+            var m = GO_RESULT.matcher(line.trim());
+            if (!m.matches()) continue;
+
+            for (var scenario : scenarios) {
+                for (var benchmark : scenario.go()) {
+                    if (m.group(1).equals(benchmark.name())) {
+                        var variant = m.group(2) == null ? "" : m.group(2);
+                        runs.computeIfAbsent(
+                                        List.of(scenario.name(), variant), k -> new ArrayList<>())
+                                .add(Double.parseDouble(m.group(3)));
+                    }
+                }
+            }
+        }
+
+        var results = new ArrayList<Result>();
+        runs.forEach(
+                (key, values) ->
+                        results.add(
+                                new Result(
+                                        key.get(0),
+                                        key.get(1),
+                                        "go",
+                                        values.stream()
+                                                .mapToDouble(Double::doubleValue)
+                                                .average()
+                                                .orElseThrow())));
+        return results;
+    }
+
+    // ****
+    // Running processes
+    // ****
+
+    /**
+     * Runs the given command, echoing its output.
+     *
+     * @return The lines of the output.
+     */
+    private static List<String> run(List<String> command, Path directory)
+            throws IOException, InterruptedException {
+        System.out.println("> " + String.join(" ", command));
+        var process =
+                new ProcessBuilder(command)
+                        .directory(directory.toFile())
+                        .redirectErrorStream(true)
+                        .start();
+
+        var lines = new ArrayList<String>();
+        try (var reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                System.out.println(line);
+                lines.add(line);
+            }
+        }
+
+        var exitCode = process.waitFor();
+        if (exitCode != 0) {
+            throw new IllegalStateException(
+                    "Command failed with exit code " + exitCode + ": " + String.join(" ", command));
+        }
+        return lines;
+    }
+
+    // ****
+    // Reports
+    // ****
+
+    static String toJson(List<Result> results) {
+        var sb = new StringBuilder("[\n");
+        for (int i = 0; i < results.size(); i++) {
+            var r = results.get(i);
+            sb.append(
+                    String.format(
+                            Locale.ROOT,
+                            "  {\"scenario\": \"%s\", \"variant\": \"%s\", \"language\": \"%s\","
+                                    + " \"nsPerOp\": %.3f, \"opsPerSecond\": %.0f}",
+                            r.scenario(),
+                            r.variant(),
+                            r.language(),
+                            r.nsPerOp(),
+                            r.opsPerSecond()));
+            sb.append(i < results.size() - 1 ? ",\n" : "\n");
+        }
+        return sb.append("]\n").toString();
+    }
+
+    /** A table with a row for each scenario & variant, and a column for each language. */
+    static String toMarkdown(List<Result> results, List<String> languages) {
+        // (scenario, variant) -> language -> result
+        var rows = new LinkedHashMap<List<String>, Map<String, Result>>();
+        for (var r : results) {
+            rows.computeIfAbsent(List.of(r.scenario(), r.variant()), k -> new HashMap<>())
+                    .put(r.language(), r);
+        }
+
+        var sb = new StringBuilder();
+        sb.append("| Scenario | Variant |");
+        for (var language : languages) sb.append(" ").append(language).append(" |");
+        sb.append("\n|---|---|");
+        sb.append("---|".repeat(languages.size()));
+        sb.append("\n");
+
+        // grouping by scenario; within a scenario, keeping the order in which the variants were run
+        var sortedRows = new ArrayList<>(rows.entrySet());
+        sortedRows.sort(Comparator.comparing(e -> e.getKey().get(0)));
+        for (var row : sortedRows) {
+            sb.append("| ")
+                    .append(row.getKey().get(0))
+                    .append(" | ")
+                    .append(row.getKey().get(1))
+                    .append(" |");
+            for (var language : languages) {
+                var r = row.getValue().get(language);
+                sb.append(" ");
+                if (r == null) {
+                    sb.append("-");
+                } else {
+                    sb.append(
+                            String.format(
+                                    Locale.ROOT,
+                                    "%.2f ns/op (%.2fM ops/s)",
+                                    r.nsPerOp(),
+                                    r.opsPerSecond() / 1_000_000));
+                }
+                sb.append(" |");
+            }
+            sb.append("\n");
+        }
+        return sb.toString();
+    }
+}
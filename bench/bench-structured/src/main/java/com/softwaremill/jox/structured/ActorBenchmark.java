@@ -0,0 +1,52 @@
+package com.softwaremill.jox.structured;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.annotations.Fork;
+
+/** Tests of the throughput of {@link ActorRef#ask} round-trips and {@link ActorRef#tell}s. */
+@Warmup(iterations = 3, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ActorBenchmark {
+    private static final int MESSAGES = 100_000;
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public long ask() throws InterruptedException {
+        return Scopes.supervised(
+                scope -> {
+                    var actor = ActorRef.create(scope, new Counter());
+                    long result = 0;
+                    for (int i = 0; i < MESSAGES; i++) {
+                        result = actor.ask(Counter::increment);
+                    }
+                    return result;
+                });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public long tell() throws InterruptedException {
+        return Scopes.supervised(
+                scope -> {
+                    var actor = ActorRef.create(scope, new Counter());
+                    for (int i = 0; i < MESSAGES; i++) {
+                        actor.tell(Counter::increment);
+                    }
+                    // waiting until all messages are processed
+                    return actor.ask(c -> c.count);
+                });
+    }
+
+    private static class Counter {
+        long count;
+
+        long increment() {
+            return ++count;
+        }
+    }
+}
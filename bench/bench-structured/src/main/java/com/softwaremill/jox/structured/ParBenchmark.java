@@ -0,0 +1,58 @@
+package com.softwaremill.jox.structured;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Scope;
+
+/**
+ * Tests of {@link Par#par(List)}, {@link Par#parLimit(int, List)}, {@link Race#race(List)} and
+ * {@link Race#timeout(long, Callable)}, with trivial computations, so that the overhead of the
+ * combinators is measured.
+ */
+@Warmup(iterations = 3, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class ParBenchmark {
+    @Param({"4", "16", "64"})
+    public int tasks;
+
+    private List<Callable<Integer>> computations;
+
+    @Setup
+    public void setup() {
+        computations = new ArrayList<>(tasks);
+        for (int i = 0; i < tasks; i++) {
+            var result = i;
+            computations.add(() -> result);
+        }
+    }
+
+    @Benchmark
+    public List<Integer> par() throws InterruptedException {
+        return Par.par(computations);
+    }
+
+    @Benchmark
+    public List<Integer> parLimit() throws InterruptedException {
+        return Par.parLimit(4, computations);
+    }
+
+    @Benchmark
+    public Integer race() throws InterruptedException {
+        return Race.race(computations);
+    }
+
+    @Benchmark
+    public Integer timeout() throws InterruptedException, TimeoutException {
+        return Race.timeout(1000, () -> 1);
+    }
+}
@@ -0,0 +1,140 @@
+package com.softwaremill.jox.structured;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.annotations.Fork;
+
+/**
+ * Tests of the cost of opening and closing a {@link Scopes#supervised(Scoped)} scope, and of
+ * starting and joining forks within a scope.
+ */
+@Warmup(iterations = 3, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ScopeBenchmark {
+    private static final int FORKS = 10_000;
+    private static final int SCOPES = 1_000;
+
+    @Benchmark
+    public Object supervisedEmpty() throws InterruptedException {
+        return Scopes.supervised(scope -> null);
+    }
+
+    @Benchmark
+    public Object supervisedWithSingleFork() throws InterruptedException {
+        return Scopes.supervised(scope -> scope.fork(() -> 1).join());
+    }
+
+    @Benchmark
+    public Object nestedSupervised() throws InterruptedException {
+        return Scopes.supervised(
+                scope1 ->
+                        Scopes.supervised(
+                                scope2 ->
+                                        Scopes.supervised(scope3 -> scope3.fork(() -> 1).join())));
+    }
+
+    @Benchmark
+    public Object supervisedCancellingDaemonFork() throws InterruptedException {
+        return Scopes.supervised(
+                scope -> {
+                    scope.fork(
+                            () -> {
+                                Thread.sleep(Long.MAX_VALUE);
+                                return null;
+                            });
+                    return null;
+                });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SCOPES)
+    public void nestedSupervisedInLoop() throws InterruptedException {
+        Scopes.supervised(
+                scope -> {
+                    for (int i = 0; i < SCOPES; i++) {
+                        Scopes.supervised(nested -> null);
+                    }
+                    return null;
+                });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FORKS)
+    public void forkJoin() throws InterruptedException {
+        Scopes.supervised(
+                scope -> {
+                    for (int i = 0; i < FORKS; i++) {
+                        scope.fork(() -> 1).join();
+                    }
+                    return null;
+                });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FORKS)
+    public void forkUserJoin() throws InterruptedException {
+        Scopes.supervised(
+                scope -> {
+                    for (int i = 0; i < FORKS; i++) {
+                        scope.forkUser(() -> 1).join();
+                    }
+                    return null;
+                });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FORKS)
+    public void forkCancellableJoin() throws InterruptedException {
+        Scopes.supervised(
+                scope -> {
+                    for (int i = 0; i < FORKS; i++) {
+                        scope.forkCancellable(() -> 1).join();
+                    }
+                    return null;
+                });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FORKS)
+    public void forkUnsupervisedJoin() throws InterruptedException {
+        Scopes.supervised(
+                scope -> {
+                    for (int i = 0; i < FORKS; i++) {
+                        scope.forkUnsupervised(() -> 1).join();
+                    }
+                    return null;
+                });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FORKS)
+    public void forkAllThenJoinAll() throws InterruptedException {
+        Scopes.supervised(
+                scope -> {
+                    var forks = new com.softwaremill.jox.structured.Fork<?>[FORKS];
+                    for (int i = 0; i < FORKS; i++) {
+                        forks[i] = scope.fork(() -> 1);
+                    }
+                    for (var f : forks) {
+                        f.join();
+                    }
+                    return null;
+                });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FORKS)
+    public void forkAllBatchThenJoinAll() throws InterruptedException {
+        var fs = new ArrayList<Callable<Integer>>(FORKS);
+        for (int i = 0; i < FORKS; i++) {
+            fs.add(() -> 1);
+        }
+        Scopes.supervised(scope -> scope.forkAll(fs).joinAll());
+    }
+}
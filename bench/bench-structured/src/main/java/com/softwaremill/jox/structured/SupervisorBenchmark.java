@@ -0,0 +1,33 @@
+package com.softwaremill.jox.structured;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.annotations.Fork;
+
+/**
+ * Tests of the fixed, per-scope cost of a {@link Supervisor}, without the structured task scope and
+ * the threads it starts: creating the supervisor, and signalling the lifecycle of a scope, in which
+ * the main body is the only user fork. Best run with {@code -prof gc}, to compare the allocations
+ * per scope.
+ */
+@Warmup(iterations = 3, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SupervisorBenchmark {
+    private static final RunFork<Object> MAIN_BODY = () -> null;
+    private static final RuntimeException SCOPE_EXCEPTION = new RuntimeException();
+
+    @Benchmark
+    public Object supervisorLifecycle() throws InterruptedException {
+        var supervisor = new Supervisor();
+        supervisor.forkUserStarts();
+        supervisor.getCommands().send(MAIN_BODY);
+        var command = supervisor.getCommands().receiveOrClosed();
+        supervisor.forkUserSuccess();
+        supervisor.addSuppressedErrors(SCOPE_EXCEPTION);
+        return supervisor.getCommands().receiveOrClosed() == command;
+    }
+}
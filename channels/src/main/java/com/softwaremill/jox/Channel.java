@@ -12,6 +12,13 @@ import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
 /**
  * Channel is a thread-safe data structure that exposes three basic operations:
  *
@@ -36,6 +43,10 @@ import java.util.stream.Stream;
  * {@link Channel#newBufferedDefaultChannel()} creates a buffered channel with a "default" capacity
  * of 16, which should be a good starting point for most use-cases.
  *
+ * <p>Buffered channels might also be elastic (created using {@link Channel#newElasticChannel(int)}
+ * or {@link Channel#newElasticChannel(int, int, int)}), in which case their capacity can be changed
+ * at runtime, either explicitly or automatically.
+ *
  * <p>In a rendezvous channel, senders and receivers block until a matching party arrives (unless
  * one is already waiting). Similarly, buffered channels block if the buffer is full (in the case of
  * senders), or in the case of receivers, if the buffer is empty and there are no waiting senders.
@@ -94,15 +105,27 @@ public final class Channel<T> implements Source<T>, Sink<T> {
       pointer in the segment to `null`, so that the previous segments can be GCed. Even if there are still ongoing
       operations on these (previous) segments, and we'll end up wanting to remove such a segment, subsequent channel
       operations won't use them, so the relinking won't be useful.
+    * the segment fields are lazily inflated: initially, they point to `Segment.UNINFLATED` (the buffer end segment only
+      for buffered channels), so that idle channels don't allocate a segment. The first operation, which needs a
+      segment, creates the segment chain privately (including processing the initial buffer), and then publishes it.
+      The winner is decided by a CAS on `sendSegment`; afterwards, `bufferEndSegment` and `receiveSegment` are set, and
+      any losers wait until that's done. Operations check for the sentinel before incrementing the counters.
+    * closing a channel, which isn't yet inflated, doesn't create the segments: instead, `sendSegment` is CASed to the
+      `Segment.CLOSED_UNINFLATED` sentinel (so that the CAS of any concurrent inflation fails), and the remaining fields
+      are set to it as well. No value has been sent, hence operations which observe this sentinel return the closed
+      reason, without using the counters.
      */
 
     public static final int DEFAULT_BUFFER_SIZE = 16;
 
     // immutable state
 
-    private final int capacity;
+    private final int capacity; // the initial capacity, in case of elastic channels
     final boolean isRendezvous;
 
+    /** Capacity adjustment state; {@code null}, unless this is an elastic channel. */
+    private final ElasticCapacity elastic;
+
     // usages are inlined to avoid storing an additional field:
     // final boolean isUnlimited = capacity < 0; !isUnlimited = capacity >= 0
 
@@ -139,6 +162,12 @@ public final class Channel<T> implements Source<T>, Sink<T> {
     @SuppressWarnings("unused")
     private volatile ChannelClosed closedReason;
 
+    /** Occupancy watermarks; {@code null}, unless set using {@link #setWatermarks}. */
+    private volatile Watermarks watermarks;
+
+    /** Set using {@link #setName(String)}, used for diagnostics. */
+    private volatile String name;
+
     // var handles
 
     private static final VarHandle SENDERS_AND_CLOSE_FLAG;
@@ -171,39 +200,93 @@ public final class Channel<T> implements Source<T>, Sink<T> {
      * capacity is 0.
      */
     private Channel(int capacity) {
+        this(capacity, null);
+    }
+
+    private Channel(int capacity, ElasticCapacity elastic) {
         if (capacity < UNLIMITED_CAPACITY)
             throw new IllegalArgumentException(
                     "Capacity must be 0 (rendezvous), positive (buffered) or -1 (unlimited"
                             + " channels).");
 
         this.capacity = capacity;
+        this.elastic = elastic;
         isRendezvous = capacity == 0L;
         boolean isUnlimited = capacity == UNLIMITED_CAPACITY;
         var isRendezvousOrUnlimited = isRendezvous || isUnlimited;
 
-        var firstSegment =
-                new Segment(0, null, isRendezvousOrUnlimited ? 2 : 3, isRendezvousOrUnlimited);
-
-        sendSegment = firstSegment;
-        receiveSegment = firstSegment;
+        // the segments are created lazily, see inflate()
+        sendSegment = Segment.UNINFLATED;
+        receiveSegment = Segment.UNINFLATED;
         // If the capacity is 0 or -1, buffer expansion never happens, so the buffer end segment
         // points to a null segment, not the first one. This is also reflected in the pointer
-        // counter of firstSegment.
-        bufferEndSegment = isRendezvousOrUnlimited ? Segment.NULL_SEGMENT : firstSegment;
-
-        processInitialBuffer();
+        // counter of the first segment.
+        bufferEndSegment = isRendezvousOrUnlimited ? Segment.NULL_SEGMENT : Segment.UNINFLATED;
 
         bufferEnd = capacity;
     }
 
-    private void processInitialBuffer() {
+    /**
+     * Creates the first segment (and, for buffered channels, the segments of the initial buffer),
+     * if this hasn't been done yet. Returns only once the segment fields are set (possibly to
+     * {@link Segment#CLOSED_UNINFLATED}, if the channel has been closed before being inflated).
+     */
+    void inflate() {
+        if (sendSegment == Segment.UNINFLATED) {
+            var isRendezvousOrUnlimited = capacity <= 0;
+            var firstSegment =
+                    new Segment(0, null, isRendezvousOrUnlimited ? 2 : 3, isRendezvousOrUnlimited);
+
+            Segment firstBufferEndSegment;
+            if (isRendezvousOrUnlimited) {
+                firstBufferEndSegment = Segment.NULL_SEGMENT;
+            } else {
+                // the chain isn't yet visible to other threads; moving a private reference
+                var bufferEndRef = new SegmentRef(firstSegment);
+                processInitialBuffer(bufferEndRef);
+                firstBufferEndSegment = bufferEndRef.segment;
+            }
+
+            if (SEND_SEGMENT.compareAndSet(this, Segment.UNINFLATED, firstSegment)) {
+                if (!isRendezvousOrUnlimited) {
+                    bufferEndSegment = firstBufferEndSegment;
+                }
+                receiveSegment = firstSegment;
+                // only once the fields are published, as other threads spin until then
+                if (Metrics.ENABLED) {
+                    try {
+                        Metrics.INSTANCE.onSegmentAllocated();
+                    } catch (RuntimeException e) {
+                        // the hooks must not throw; ignoring, as the channel is already inflated
+                    }
+                }
+                return;
+            }
+            // else: CAS unsuccessful, another thread inflated the channel
+        }
+
+        // waiting until the thread which inflated the channel sets the remaining fields
+        while (receiveSegment == Segment.UNINFLATED || bufferEndSegment == Segment.UNINFLATED) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * @return {@code true}, if the segments of this channel have been created.
+     */
+    boolean isInflated() {
+        var s = sendSegment;
+        return s != Segment.UNINFLATED && s != Segment.CLOSED_UNINFLATED;
+    }
+
+    private void processInitialBuffer(SegmentRef bufferEndRef) {
         // the cells that are initially in the buffer are already processed (expandBuffer won't
         // touch them): we need to mark them as processed, so that segment removal works properly
         // for these initial segments; however, the buffer might span several segments, so we need
         // to iterate over them. The cells that are initially in the buffer will never become
         // interrupted senders.
 
-        var currentSegment = bufferEndSegment;
+        var currentSegment = bufferEndRef.segment;
         // the number of segments where all cells are processed, or some are processed (last segment
         // of the buffer) = Math.ceil((double) capacity / Segment.SEGMENT_SIZE) (optimized for
         // efficiency)
@@ -214,7 +297,7 @@ public final class Channel<T> implements Source<T>, Sink<T> {
 
         for (int segmentId = 0; segmentId < segmentsToProcess; segmentId++) {
             currentSegment =
-                    findAndMoveForward(BUFFER_END_SEGMENT, this, currentSegment, segmentId);
+                    findAndMoveForward(SegmentRef.SEGMENT, bufferEndRef, currentSegment, segmentId);
 
             var cellsToProcess =
                     (segmentId == segmentsToProcess - 1)
@@ -244,8 +327,73 @@ public final class Channel<T> implements Source<T>, Sink<T> {
         return new Channel<>(UNLIMITED_CAPACITY);
     }
 
+    /**
+     * Creates a buffered channel, whose capacity can be changed at runtime using {@link
+     * #setCapacity(int)}.
+     *
+     * @param initialCapacity The initial capacity of the channel, must be positive.
+     */
+    public static <T> Channel<T> newElasticChannel(int initialCapacity) {
+        return newElasticChannel(initialCapacity, 1, Integer.MAX_VALUE, false);
+    }
+
+    /**
+     * Creates a buffered channel, whose capacity is adjusted automatically, within the given
+     * bounds. The capacity can also be changed explicitly using {@link #setCapacity(int)}.
+     *
+     * <p>The capacity is adjusted basing on the observed ratio of blocked senders (which indicates
+     * that the buffer is too small) and blocked receivers (which indicates that the buffer is
+     * larger than needed). Each time 64 blocking operations are observed, if at least 3/4 of them
+     * are senders, the capacity is doubled; if at least 3/4 of them are receivers, the capacity is
+     * halved. Operations that complete without blocking are not tracked, and incur no additional
+     * overhead.
+     *
+     * @param initialCapacity The initial capacity of the channel.
+     * @param minCapacity The minimum capacity, must be positive.
+     * @param maxCapacity The maximum capacity.
+     */
+    public static <T> Channel<T> newElasticChannel(
+            int initialCapacity, int minCapacity, int maxCapacity) {
+        return newElasticChannel(initialCapacity, minCapacity, maxCapacity, true);
+    }
+
+    private static <T> Channel<T> newElasticChannel(
+            int initialCapacity, int minCapacity, int maxCapacity, boolean autoTune) {
+        if (minCapacity < 1 || maxCapacity < minCapacity) {
+            throw new IllegalArgumentException(
+                    "Capacity bounds must satisfy: 1 <= minCapacity <= maxCapacity, but got: "
+                            + minCapacity
+                            + ", "
+                            + maxCapacity);
+        }
+        if (initialCapacity < minCapacity || initialCapacity > maxCapacity) {
+            throw new IllegalArgumentException(
+                    "Initial capacity must be within ["
+                            + minCapacity
+                            + ", "
+                            + maxCapacity
+                            + "], but got: "
+                            + initialCapacity);
+        }
+        return new Channel<>(
+                initialCapacity,
+                new ElasticCapacity(initialCapacity, minCapacity, maxCapacity, autoTune));
+    }
+
     private static final int UNLIMITED_CAPACITY = -1;
 
+    /**
+     * The number of blocking operations after which the capacity of an automatically adjusted
+     * elastic channel is reconsidered.
+     */
+    static final int AUTO_TUNE_WINDOW = 64;
+
+    /**
+     * The maximum increase of an elastic channel's capacity in a single change, as the buffer is
+     * expanded cell by cell.
+     */
+    static final int MAX_CAPACITY_INCREASE = 65_536;
+
     // *******
     // Sending
     // *******
@@ -282,6 +430,12 @@ public final class Channel<T> implements Source<T>, Sink<T> {
             // reading the segment before the counter increment - this is needed to find the
             // required segment later
             var segment = sendSegment;
+            if (segment == Segment.UNINFLATED) {
+                inflate();
+                continue;
+            } else if (segment == Segment.CLOSED_UNINFLATED) {
+                return closedReason;
+            }
             // reserving the next cell
             var scf = (long) SENDERS_AND_CLOSE_FLAG.getAndAdd(this, 1L);
             var s = getSendersCounter(scf);
@@ -319,14 +473,17 @@ public final class Channel<T> implements Source<T>, Sink<T> {
             if (sendResult == SendResult.BUFFERED) {
                 // a receiver is coming, or we are in buffer
                 // similarly as above, not clearing the previous pointer
+                sent(s);
                 return null;
             } else if (sendResult == SendResult.AWAITED) {
                 // the thread was suspended and then resumed by a receiver or by buffer expansion
                 // not clearing the previous pointer, because of the buffering possibility
+                sent(s);
                 return null;
             } else if (sendResult == SendResult.RESUMED) {
                 // we resumed a receiver - we can be sure that R > s
                 segment.cleanPrev();
+                sent(s);
                 return null;
             } else if (sendResult instanceof StoredSelectClause ss) {
                 // we stored a select instance - there's no matching receive, not clearing the
@@ -388,7 +545,10 @@ public final class Channel<T> implements Source<T>, Sink<T> {
                         // receiver can use it
                         var c = new Continuation(value);
                         if (segment.casCell(i, null, c)) {
-                            if (c.await(segment, i, isRendezvous) == ChannelClosedMarker.CLOSED) {
+                            if (elastic != null) elasticSuspended(true);
+                            if (Metrics.ENABLED) Metrics.INSTANCE.onSuspend(this, true);
+                            if (c.await(this, segment, i, isRendezvous)
+                                    == ChannelClosedMarker.CLOSED) {
                                 return SendResult.CLOSED;
                             } else {
                                 return SendResult.AWAITED;
@@ -478,6 +638,13 @@ public final class Channel<T> implements Source<T>, Sink<T> {
             // reading the segment before the counter increment - this is needed to find the
             // required segment later
             var segment = receiveSegment;
+            if (segment == Segment.UNINFLATED) {
+                inflate();
+                continue;
+            } else if (segment == Segment.CLOSED_UNINFLATED) {
+                // nothing has been sent, so there's nothing to receive
+                return closedReason;
+            }
             // reserving the next cell
             var r = (long) RECEIVERS.getAndAdd(this, 1L);
 
@@ -523,6 +690,9 @@ public final class Channel<T> implements Source<T>, Sink<T> {
                     segment.cleanPrev();
                 }
                 if (result != ReceiveResult.FAILED) {
+                    if (!(result instanceof StoredSelectClause)) {
+                        received(r);
+                    }
                     return result;
                 }
             }
@@ -570,7 +740,9 @@ public final class Channel<T> implements Source<T>, Sink<T> {
                         var c = new Continuation(null);
                         if (segment.casCell(i, state, c)) {
                             expandBuffer();
-                            var result = c.await(segment, i, isRendezvous);
+                            if (elastic != null) elasticSuspended(false);
+                            if (Metrics.ENABLED) Metrics.INSTANCE.onSuspend(this, false);
+                            var result = c.await(this, segment, i, isRendezvous);
                             if (result == ChannelClosedMarker.CLOSED) {
                                 return ReceiveResult.CLOSED;
                             } else {
@@ -654,10 +826,22 @@ public final class Channel<T> implements Source<T>, Sink<T> {
 
     private void expandBuffer() {
         if (capacity <= 0) return; // isRendezvous || isUnlimited
+        // if the capacity of an elastic channel has been decreased, instead of expanding the
+        // buffer, one cell of the shrink is applied (the buffer's end doesn't move, while the
+        // receivers counter does)
+        if (elastic != null && elastic.tryConsumeShrink()) return;
         while (true) {
             // reading the segment before the counter increment - this is needed to find the
             // required segment later
             var segment = bufferEndSegment;
+            if (segment == Segment.UNINFLATED) {
+                // the capacity of an elastic channel is increased before any other operation
+                inflate();
+                continue;
+            } else if (segment == Segment.CLOSED_UNINFLATED) {
+                // the capacity of an elastic channel is increased after it's closed
+                return;
+            }
             // reserving the next cell
             var b = (long) BUFFER_END.getAndAdd(this, 1L);
 
@@ -788,6 +972,190 @@ public final class Channel<T> implements Source<T>, Sink<T> {
         }
     }
 
+    // ******
+    // Naming
+    // ******
+
+    /**
+     * Sets the name of this channel, which is then used in diagnostics, such as the reports of the
+     * {@link StallDetector}.
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return The name set using {@link #setName(String)}, or {@code Channel@} followed by the
+     *     channel's identity hash code, if no name has been set.
+     */
+    public String name() {
+        var n = name;
+        return n != null ? n : "Channel@" + Integer.toHexString(System.identityHashCode(this));
+    }
+
+    // *******************
+    // Capacity adjustment
+    // *******************
+
+    /**
+     * @return The current capacity of this channel: {@code 0} for rendezvous channels, {@code -1}
+     *     for unlimited channels. For elastic channels, this is the most recently set capacity,
+     *     which might not yet be fully applied (see {@link #setCapacity(int)}).
+     */
+    public int capacity() {
+        return elastic != null ? elastic.capacity() : capacity;
+    }
+
+    /**
+     * Changes the capacity of an elastic channel (created using {@link #newElasticChannel(int)} or
+     * {@link #newElasticChannel(int, int, int)}).
+     *
+     * <p>When the capacity is increased, the buffer is expanded immediately, possibly resuming
+     * blocked senders. When the capacity is decreased, values which are already buffered are never
+     * discarded; instead, the buffer shrinks as subsequent values are received.
+     *
+     * <p>As the buffer is expanded cell by cell, the capacity can be increased by at most 65536 in
+     * a single call.
+     *
+     * @param newCapacity The new capacity, within the bounds specified when creating the channel.
+     * @throws IllegalStateException When this isn't an elastic channel.
+     * @throws IllegalArgumentException When the capacity is outside the channel's bounds, or when
+     *     it's larger than the current capacity by more than 65536.
+     */
+    public void setCapacity(int newCapacity) {
+        if (elastic == null) {
+            throw new IllegalStateException(
+                    "Capacity can only be changed for elastic channels, but this is: " + this);
+        }
+        if (newCapacity < elastic.minCapacity || newCapacity > elastic.maxCapacity) {
+            throw new IllegalArgumentException(
+                    "Capacity must be within ["
+                            + elastic.minCapacity
+                            + ", "
+                            + elastic.maxCapacity
+                            + "], but got: "
+                            + newCapacity);
+        }
+        if ((long) newCapacity - elastic.capacity() > MAX_CAPACITY_INCREASE) {
+            throw new IllegalArgumentException(
+                    "Capacity can be increased by at most "
+                            + MAX_CAPACITY_INCREASE
+                            + " at a time, but got: "
+                            + newCapacity
+                            + ", while the current capacity is: "
+                            + elastic.capacity());
+        }
+        changeCapacity(newCapacity);
+    }
+
+    private void changeCapacity(int newCapacity) {
+        var delta = newCapacity - elastic.getAndSetCapacity(newCapacity);
+        // concurrent changes are applied by their deltas, so the end result is consistent
+        if (delta > 0) {
+            // each buffer expansion either cancels a pending shrink, or moves the buffer's end by
+            // one cell - in the same way as when a value is received
+            for (int k = 0; k < delta; k++) {
+                expandBuffer();
+            }
+        } else if (delta < 0) {
+            elastic.addShrink(-delta);
+        }
+    }
+
+    /** Called on the slow path, when a sender or receiver of an elastic channel blocks. */
+    private void elasticSuspended(boolean isSender) {
+        var newCapacity = elastic.recordSuspension(isSender);
+        if (newCapacity != -1 && !isClosed(sendersAndClosedFlag)) {
+            changeCapacity(newCapacity);
+        }
+    }
+
+    // **********
+    // Watermarks
+    // **********
+
+    /**
+     * Sets the occupancy watermarks of this channel. The occupancy is the distance between the
+     * number of completed sends and receives, that is the number of buffered values (or more, if
+     * there are blocked senders).
+     *
+     * <p>When the occupancy reaches {@code high}, {@link WatermarkListener#onHighWatermark} is
+     * called. Then, once the occupancy drops to {@code low}, {@link
+     * WatermarkListener#onLowWatermark} is called, and so on. The occupancy is computed by the send
+     * and receive operations using the counters they have already read, without additional
+     * synchronization - hence it's approximate when there are concurrent operations.
+     *
+     * <p>Replaces any previously set watermarks. The channel starts below the high watermark.
+     *
+     * @param low The low watermark, non-negative.
+     * @param high The high watermark, greater than {@code low}.
+     */
+    public void setWatermarks(long low, long high, WatermarkListener listener) {
+        if (low < 0 || high <= low) {
+            throw new IllegalArgumentException(
+                    "Watermarks must satisfy: 0 <= low < high, but got: " + low + ", " + high);
+        }
+        if (listener == null) {
+            throw new NullPointerException("Watermark listener cannot be null");
+        }
+        watermarks = new Watermarks(low, high, listener);
+    }
+
+    /**
+     * Sets the occupancy watermarks of this buffered channel, as percentages of its capacity. See
+     * {@link #setWatermarks(long, long, WatermarkListener)} for details.
+     *
+     * <p>For elastic channels, the watermarks are computed using the current capacity, and are not
+     * updated when the capacity changes.
+     *
+     * @param lowPercent The low watermark, e.g. {@code 20}.
+     * @param highPercent The high watermark, e.g. {@code 80}.
+     */
+    public void setWatermarkPercentages(
+            int lowPercent, int highPercent, WatermarkListener listener) {
+        var c = capacity();
+        if (c <= 0) {
+            throw new IllegalStateException(
+                    "Percentage watermarks can only be set on buffered channels, but this is: "
+                            + this);
+        }
+        if (lowPercent < 0 || highPercent > 100 || highPercent <= lowPercent) {
+            throw new IllegalArgumentException(
+                    "Watermark percentages must satisfy: 0 <= low < high <= 100, but got: "
+                            + lowPercent
+                            + ", "
+                            + highPercent);
+        }
+        var high = Math.max(1, (c * (long) highPercent + 99) / 100);
+        setWatermarks(Math.min(high - 1, c * (long) lowPercent / 100), high, listener);
+    }
+
+    /** Removes the watermarks set using {@link #setWatermarks}, if any. */
+    public void clearWatermarks() {
+        watermarks = null;
+    }
+
+    /**
+     * Called after the value with the given index has been sent; a single volatile read, if no
+     * watermarks are set.
+     */
+    private void sent(long s) {
+        if (Metrics.ENABLED) Metrics.INSTANCE.onSend(this);
+        var w = watermarks;
+        if (w != null) {
+            w.update(this, s + 1 - receivers);
+        }
+    }
+
+    /** Called after the value with the given index has been received. */
+    private void received(long r) {
+        if (Metrics.ENABLED) Metrics.INSTANCE.onReceive(this);
+        var w = watermarks;
+        if (w != null) {
+            w.update(this, getSendersCounter(sendersAndClosedFlag) - r - 1);
+        }
+    }
+
     // *******
     // Closing
     // *******
@@ -838,8 +1206,20 @@ public final class Channel<T> implements Source<T>, Sink<T> {
 
         var lastSender = getSendersCounter(scf);
 
+        if (SEND_SEGMENT.compareAndSet(this, Segment.UNINFLATED, Segment.CLOSED_UNINFLATED)) {
+            // no operation has created the segments yet; instead of creating them only to close
+            // their cells, marking the channel as closed before inflation
+            if (bufferEndSegment == Segment.UNINFLATED) {
+                bufferEndSegment = Segment.CLOSED_UNINFLATED;
+            }
+            receiveSegment = Segment.CLOSED_UNINFLATED;
+            if (elastic != null) elastic.disableShrink();
+            return null;
+        }
+
         // closing the segment chain guarantees that no new segment beyond `lastSegment` will be
         // created
+        inflate();
         var lastSegment = sendSegment.close();
 
         if (channelClosed instanceof ChannelError) {
@@ -851,6 +1231,10 @@ public final class Channel<T> implements Source<T>, Sink<T> {
 
         // only for buffered channels
         if (capacity > 0) {
+            // pending shrinks would only delay marking the cells as processed; concurrent capacity
+            // changes won't add new ones
+            if (elastic != null) elastic.disableShrink();
+
             // Running `expandBuffer` for all remaining cells in the segments, so that they are
             // marked as processed, and segments full of closed/interrupted cells can be
             // removed. This is safe, as after closing all cells are either closed, interrupted
@@ -980,6 +1364,46 @@ public final class Channel<T> implements Source<T>, Sink<T> {
         }
     }
 
+    /**
+     * @return The (approximate) number of buffered values: based on the counters, but excluding
+     *     waiting senders, when the buffer is full.
+     */
+    long bufferedCount() {
+        var pending = getSendersCounter(sendersAndClosedFlag) - receivers;
+        if (pending <= 0) {
+            return 0;
+        }
+        var c = capacity();
+        return c < 0 ? pending : Math.min(pending, c);
+    }
+
+    /**
+     * @return The (approximate) number of segments reachable from this channel: from the oldest
+     *     segment that is referenced by the channel (directly, or through {@code prev} links), up
+     *     to the tail. Used to detect segments which are retained, even though they are no longer
+     *     needed.
+     */
+    long retainedSegmentCount() {
+        Segment first = null;
+        for (var s : new Segment[] {sendSegment, receiveSegment, bufferEndSegment}) {
+            if (s.getId() < 0) continue; // one of the sentinels
+            for (var p = s.getPrev(); p != null; p = p.getPrev()) s = p;
+            if (first == null || s.getId() < first.getId()) first = s;
+        }
+
+        long count = 0;
+        for (var s = first; s != null; s = s.getNext()) count++;
+        return count;
+    }
+
+    /**
+     * @return {@code true}, if there are no values buffered and no waiting senders (S <= R), that
+     *     is a receive would block at the moment of reading the counters.
+     */
+    boolean isEmpty() {
+        return getSendersCounter(sendersAndClosedFlag) <= receivers;
+    }
+
     private boolean hasValuesToReceive() {
         while (true) {
             // reading the segment before the counter - this is needed to find the required segment
@@ -994,6 +1418,13 @@ public final class Channel<T> implements Source<T>, Sink<T> {
                 return false;
             }
 
+            if (segment == Segment.UNINFLATED) {
+                inflate();
+                continue;
+            } else if (segment == Segment.CLOSED_UNINFLATED) {
+                return false;
+            }
+
             // calculating the segment id and the index within the segment
             var id = r / Segment.SEGMENT_SIZE;
             var i = (int) (r % Segment.SEGMENT_SIZE);
@@ -1176,20 +1607,26 @@ public final class Channel<T> implements Source<T>, Sink<T> {
 
     @Override
     public String toString() {
+        var scf = sendersAndClosedFlag;
+        var sendersCounter = getSendersCounter(scf);
+        var isClosed = isClosed(scf);
+
+        if (!isInflated()) {
+            // not creating the segments only to display them
+            return "Channel(capacity=" + capacity() + ", closed=" + isClosed + ", not inflated)";
+        }
+
+        // skipping the sentinels, if the channel is being inflated concurrently
         //noinspection OptionalGetWithoutIsPresent
         var smallestSegment =
                 Stream.of(sendSegment, receiveSegment, bufferEndSegment)
-                        .filter(s -> s != Segment.NULL_SEGMENT)
+                        .filter(s -> s.getId() >= 0)
                         .min(Comparator.comparingLong(Segment::getId))
                         .get();
 
-        var scf = sendersAndClosedFlag;
-        var sendersCounter = getSendersCounter(scf);
-        var isClosed = isClosed(scf);
-
         var sb = new StringBuilder();
         sb.append("Channel(capacity=")
-                .append(capacity)
+                .append(capacity())
                 .append(", closed=")
                 .append(isClosed)
                 .append(", sendSegment=")
@@ -1274,6 +1711,201 @@ enum ExpandBufferResult {
     CLOSED
 }
 
+/**
+ * The state of an elastic channel: the current capacity, the number of buffer cells by which the
+ * buffer should still shrink, and (if enabled) the suspension counters used to adjust the capacity
+ * automatically.
+ */
+final class ElasticCapacity {
+    final int minCapacity;
+    final int maxCapacity;
+    private final boolean autoTune;
+
+    @SuppressWarnings("unused")
+    private volatile int capacity; // set using CAPACITY var handle
+
+    @SuppressWarnings("unused")
+    private volatile int pendingShrink; // set using PENDING_SHRINK var handle
+
+    /**
+     * Blocked senders (upper 32 bits) and blocked receivers (lower 32 bits) observed in the current
+     * auto-tuning window.
+     */
+    @SuppressWarnings("unused")
+    private volatile long suspensions; // set using SUSPENSIONS var handle
+
+    private static final int SHRINK_DISABLED = -1;
+
+    private static final long SENDER_SUSPENSION = 1L << 32;
+    private static final long RECEIVER_SUSPENSION_MASK = SENDER_SUSPENSION - 1;
+
+    ElasticCapacity(int initialCapacity, int minCapacity, int maxCapacity, boolean autoTune) {
+        this.capacity = initialCapacity;
+        this.minCapacity = minCapacity;
+        this.maxCapacity = maxCapacity;
+        this.autoTune = autoTune;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    int getAndSetCapacity(int newCapacity) {
+        return (int) CAPACITY.getAndSet(this, newCapacity);
+    }
+
+    void addShrink(int cells) {
+        while (true) {
+            var ps = pendingShrink;
+            if (ps == SHRINK_DISABLED) return;
+            if (PENDING_SHRINK.compareAndSet(this, ps, ps + cells)) return;
+            // else: CAS unsuccessful, repeat
+        }
+    }
+
+    /** Clears any pending shrink, and ignores any subsequent ones. Called when closing. */
+    void disableShrink() {
+        pendingShrink = SHRINK_DISABLED;
+    }
+
+    /**
+     * @return {@code true}, if a pending shrink has been consumed, and the buffer shouldn't be
+     *     expanded.
+     */
+    boolean tryConsumeShrink() {
+        while (true) {
+            var ps = pendingShrink;
+            if (ps <= 0) return false;
+            if (PENDING_SHRINK.compareAndSet(this, ps, ps - 1)) return true;
+            // else: CAS unsuccessful, repeat
+        }
+    }
+
+    /**
+     * @return The new capacity to set, if the auto-tuning window is complete and the capacity
+     *     should change, {@code -1} otherwise.
+     */
+    int recordSuspension(boolean isSender) {
+        if (!autoTune) return -1;
+
+        var current =
+                (long) SUSPENSIONS.getAndAdd(this, isSender ? SENDER_SUSPENSION : 1L)
+                        + (isSender ? SENDER_SUSPENSION : 1L);
+        var blockedSenders = (int) (current >>> 32);
+        var blockedReceivers = (int) (current & RECEIVER_SUSPENSION_MASK);
+        if (blockedSenders + blockedReceivers < Channel.AUTO_TUNE_WINDOW) return -1;
+
+        // only one thread completes the window; the others will observe a new one
+        if (!SUSPENSIONS.compareAndSet(this, current, 0L)) return -1;
+
+        var c = capacity;
+        var threshold = Channel.AUTO_TUNE_WINDOW * 3 / 4;
+        if (blockedSenders >= threshold && c < maxCapacity) {
+            return (int)
+                    Math.min(maxCapacity, c + (long) Math.min(c, Channel.MAX_CAPACITY_INCREASE));
+        } else if (blockedReceivers >= threshold && c > minCapacity) {
+            return Math.max(minCapacity, c / 2);
+        } else {
+            return -1;
+        }
+    }
+
+    //
+
+    private static final VarHandle CAPACITY;
+    private static final VarHandle PENDING_SHRINK;
+    private static final VarHandle SUSPENSIONS;
+
+    static {
+        var l = MethodHandles.lookup();
+        try {
+            CAPACITY = l.findVarHandle(ElasticCapacity.class, "capacity", int.class);
+            PENDING_SHRINK = l.findVarHandle(ElasticCapacity.class, "pendingShrink", int.class);
+            SUSPENSIONS = l.findVarHandle(ElasticCapacity.class, "suspensions", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
+
+/**
+ * Watermarks of a channel, along with the flag indicating if the high watermark has been reached.
+ * The flag is only updated (using a CAS) when a watermark is crossed.
+ */
+final class Watermarks {
+    private final long low;
+    private final long high;
+    private final WatermarkListener listener;
+
+    @SuppressWarnings("unused")
+    private volatile boolean aboveHigh; // set using ABOVE_HIGH var handle
+
+    Watermarks(long low, long high, WatermarkListener listener) {
+        this.low = low;
+        this.high = high;
+        this.listener = listener;
+    }
+
+    void update(Channel<?> channel, long occupancy) {
+        if (aboveHigh) {
+            if (occupancy <= low && ABOVE_HIGH.compareAndSet(this, true, false)) {
+                notify(channel, false);
+            }
+        } else {
+            if (occupancy >= high && ABOVE_HIGH.compareAndSet(this, false, true)) {
+                notify(channel, true);
+            }
+        }
+    }
+
+    private void notify(Channel<?> channel, boolean high) {
+        try {
+            if (high) {
+                listener.onHighWatermark(channel);
+            } else {
+                listener.onLowWatermark(channel);
+            }
+        } catch (Throwable t) {
+            // the channel operation has already completed, so it shouldn't fail
+            var thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, t);
+        }
+    }
+
+    //
+
+    private static final VarHandle ABOVE_HIGH;
+
+    static {
+        var l = MethodHandles.lookup();
+        try {
+            ABOVE_HIGH = l.findVarHandle(Watermarks.class, "aboveHigh", boolean.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
+
+/** A reference to a segment, which isn't yet shared with other threads. */
+final class SegmentRef {
+    volatile Segment segment;
+
+    SegmentRef(Segment segment) {
+        this.segment = segment;
+    }
+
+    static final VarHandle SEGMENT;
+
+    static {
+        var l = MethodHandles.lookup();
+        try {
+            SEGMENT = l.findVarHandle(SegmentRef.class, "segment", Segment.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
+
 // possible states of a cell: one of the enum constants below, Continuation, SelectInstance or a
 // buffered value (directly as given by the user)
 
@@ -1290,9 +1922,9 @@ enum CellState {
 final class Continuation {
     /**
      * For rendezvous channels, the number of busy-looping iterations before yielding, during {@link
-     * Continuation#await(Segment, int, boolean)}. {@code 0}, if there's a single CPU. When there's
-     * no more than 4 CPUs, we use {@code 128} iterations: this is based on the (limited) testing
-     * that we've done with various systems. Otherwise, we use 1024 iterations.
+     * Continuation#await(Channel, Segment, int, boolean)}. {@code 0}, if there's a single CPU. When
+     * there's no more than 4 CPUs, we use {@code 128} iterations: this is based on the (limited)
+     * testing that we've done with various systems. Otherwise, we use 1024 iterations.
      *
      * <p>For buffered channels, busy-looping is not used, as this negatively affects the
      * performance.
@@ -1342,18 +1974,31 @@ final class Continuation {
     /**
      * Await for the continuation to be resumed.
      *
+     * @param channel The channel on which the operation is performed, reported in JFR events and
+     *     registered in {@link Waiters}.
      * @param segment The segment in which the cell is located.
      * @param cellIndex The index of the cell for which to change the state to interrupted, if
      *     interruption happens.
      * @return The value with which the continuation was resumed.
      */
-    Object await(Segment segment, int cellIndex, boolean isRendezvous) throws InterruptedException {
+    Object await(Channel<?> channel, Segment segment, int cellIndex, boolean isRendezvous)
+            throws InterruptedException {
         var spinIterations = isRendezvous ? RENDEZVOUS_SPINS : 0;
+        var parked = false;
+        // created only when parking, so that the fast path isn't affected
+        ChannelWaitEvent event = null;
+        Waiter waiter = null;
         while (data == null) {
             if (spinIterations > 0) {
                 Thread.onSpinWait();
                 spinIterations -= 1;
             } else {
+                if (!parked) {
+                    event = ChannelWaitEvent.startIfEnabled(isSender());
+                    waiter = Waiters.register(channel, isSender());
+                    parked = true;
+                }
+
                 LockSupport.park();
 
                 if (Thread.interrupted()) {
@@ -1372,6 +2017,8 @@ final class Continuation {
                             segment.cellInterruptedReceiver();
                         }
 
+                        if (event != null) event.complete(channel, true);
+                        if (waiter != null) waiter.unregister();
                         throw new InterruptedException();
                     } else {
                         // another thread already set the data; setting the interrupt status (so
@@ -1382,6 +2029,13 @@ final class Continuation {
             }
         }
 
+        if (event != null) event.complete(channel, false);
+        if (waiter != null) waiter.unregister();
+        if (Metrics.ENABLED) {
+            if (parked) Metrics.INSTANCE.onPark();
+            else Metrics.INSTANCE.onSpinSuccess();
+        }
+
         return data;
     }
 
@@ -1420,3 +2074,88 @@ enum ChannelClosedMarker {
 enum SentClauseMarker {
     SENT
 }
+
+/**
+ * The JFR events, which are emitted when a channel operation parks the thread. The duration of the
+ * event is the time spent waiting.
+ */
+interface ChannelWaitEvent {
+    /**
+     * @return A started event, or {@code null}, if the event isn't enabled.
+     */
+    static ChannelWaitEvent startIfEnabled(boolean isSender) {
+        if (!Jfr.AVAILABLE) {
+            return null;
+        } else if (isSender) {
+            var event = new ChannelSendEvent();
+            if (!event.isEnabled()) return null;
+            event.begin();
+            return event;
+        } else {
+            var event = new ChannelReceiveEvent();
+            if (!event.isEnabled()) return null;
+            event.begin();
+            return event;
+        }
+    }
+
+    void complete(Channel<?> channel, boolean interrupted);
+}
+
+@Name("jox.ChannelSend")
+@Label("Channel Send")
+@Description("A send, which waited for a receiver or buffer space")
+@Category({"Jox", "Channels"})
+@Threshold("20 ms")
+final class ChannelSendEvent extends Event implements ChannelWaitEvent {
+    @Label("Channel Id")
+    @Description("Identity hash code of the channel")
+    int channelId;
+
+    @Label("Capacity")
+    @Description("0 for rendezvous, -1 for unlimited channels")
+    int capacity;
+
+    @Label("Interrupted")
+    boolean interrupted;
+
+    @Override
+    public void complete(Channel<?> channel, boolean interrupted) {
+        end();
+        if (shouldCommit()) {
+            this.channelId = System.identityHashCode(channel);
+            this.capacity = channel.capacity();
+            this.interrupted = interrupted;
+            commit();
+        }
+    }
+}
+
+@Name("jox.ChannelReceive")
+@Label("Channel Receive")
+@Description("A receive, which waited for a sender")
+@Category({"Jox", "Channels"})
+@Threshold("20 ms")
+final class ChannelReceiveEvent extends Event implements ChannelWaitEvent {
+    @Label("Channel Id")
+    @Description("Identity hash code of the channel")
+    int channelId;
+
+    @Label("Capacity")
+    @Description("0 for rendezvous, -1 for unlimited channels")
+    int capacity;
+
+    @Label("Interrupted")
+    boolean interrupted;
+
+    @Override
+    public void complete(Channel<?> channel, boolean interrupted) {
+        end();
+        if (shouldCommit()) {
+            this.channelId = System.identityHashCode(channel);
+            this.capacity = channel.capacity();
+            this.interrupted = interrupted;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.softwaremill.jox;
+
+/**
+ * JMX interface of the channel diagnostics, registered using {@link WaitForGraph#registerMBean()}.
+ * Can be accessed e.g. using JConsole or VisualVM.
+ */
+public interface ChannelDiagnosticsMXBean {
+    /**
+     * @return The wait-for graph of parked channel operations, see {@link WaitForGraph#dump()}.
+     */
+    String getWaitForGraph();
+
+    /**
+     * @return {@code true}, if parked channel operations are currently tracked.
+     */
+    boolean isTracking();
+
+    /** Enables or disables tracking of parked channel operations. */
+    void setTracking(boolean enabled);
+}
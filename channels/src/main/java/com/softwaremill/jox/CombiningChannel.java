@@ -0,0 +1,449 @@
+package com.softwaremill.jox;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A combining & elimination layer in front of a {@link Channel}, intended for channels used by a
+ * large number of concurrent senders.
+ *
+ * <p>Senders publish their values in a publication array. One of them becomes the combiner, and
+ * sends all published values to the underlying channel on behalf of the other senders, which wait
+ * until their value is sent. That way, only a single thread at a time updates the channel's
+ * counters & cells, reducing cache-line contention. The combiner never blocks: if a value can't be
+ * sent immediately (the channel is full), it's handed back to its sender, which then sends it
+ * directly to the channel, blocking only itself.
+ *
+ * <p>Moreover, when the channel is empty, receivers post offers in an elimination array, where
+ * senders can hand over values directly, bypassing the channel altogether. Elimination only happens
+ * when the channel is empty, so the order of values sent by a single sender is preserved.
+ * Elimination is disabled when there's a single CPU.
+ *
+ * <p>Select clauses, as well as closing the channel, are delegated to the underlying channel.
+ *
+ * <p>Sending values directly to the underlying channel, bypassing this layer, is allowed.
+ *
+ * @param <T> The type of the values processed by the channel.
+ */
+public final class CombiningChannel<T> implements Source<T>, Sink<T> {
+    /*
+    The combining protocol:
+    * a sender publishes a `SendOp` in a free slot of `sendSlots` (starting from a per-thread index); if all slots are
+      taken, it sends directly to the channel
+    * then, it tries to become the combiner (CAS on `combining`); if that fails, it waits for the op to complete
+    * the combiner claims pending ops (PENDING -> CLAIMED), tries to send their values without blocking, clears the
+      slot and completes the op (-> DONE), unparking the owner. It repeats passes over the slots while there are ops
+      to process
+    * if a value can't be sent without blocking, the channel is full: the op, and any other ops claimed afterwards,
+      are handed back to their owners (-> RETURNED), which send their values directly to the channel. Hence, the
+      combiner never waits on behalf of other threads
+    * after releasing the combiner flag, the slots are checked again, and the owners of any pending ops are unparked,
+      so that one of them becomes the next combiner. As both publishing & releasing are followed by volatile reads of
+      the other variable, either the publisher observes that there's no combiner, or the combiner observes the op.
+    * when an owner is interrupted, it cancels the op (PENDING -> CANCELLED) and throws; if the op is already claimed,
+      the owner waits until the combiner is done with it. If the value has been sent, the interrupt flag is re-set;
+      if the op has been handed back, the value isn't sent, and the owner throws
+     */
+
+    private static final int SLOTS;
+    private static final int ELIMINATION_SPINS;
+    private static final int COMBINING_SPINS;
+    private static final int COMBINING_PASSES = 4;
+
+    static {
+        var nproc = Runtime.getRuntime().availableProcessors();
+        // the smallest power of 2, which is at least the number of CPUs, but not more than 64
+        SLOTS = Math.min(64, Integer.highestOneBit(Math.max(1, nproc - 1)) << 1);
+        ELIMINATION_SPINS = (nproc == 1) ? 0 : 256;
+        COMBINING_SPINS = (nproc == 1) ? 0 : 128;
+    }
+
+    private final Channel<T> channel;
+    private final Object[] sendSlots = new Object[SLOTS]; // SendOp or null
+    private final Object[] offerSlots = new Object[SLOTS]; // ReceiveOffer or null
+
+    @SuppressWarnings("unused")
+    private volatile int combining; // set using COMBINING var handle
+
+    /**
+     * @param channel The underlying channel, to which values are sent and from which values are
+     *     received.
+     */
+    public CombiningChannel(Channel<T> channel) {
+        this.channel = channel;
+    }
+
+    /** The underlying channel. */
+    public Channel<T> channel() {
+        return channel;
+    }
+
+    // *******
+    // Sending
+    // *******
+
+    @Override
+    public void send(T value) throws InterruptedException {
+        var r = sendOrClosed(value);
+        if (r instanceof ChannelClosed c) {
+            throw c.toException();
+        }
+    }
+
+    @Override
+    public Object sendOrClosed(T value) throws InterruptedException {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+
+        // if the channel is empty, there might be receivers waiting in the elimination array
+        if (ELIMINATION_SPINS > 0
+                && channel.isEmpty()
+                && !channel.isClosedForSend()
+                && tryEliminate(value)) {
+            return null;
+        }
+
+        var op = new SendOp(value);
+        var slot = publish(op);
+        if (slot == -1) {
+            // all slots are taken
+            return channel.sendOrClosed(value);
+        }
+
+        return awaitSent(op, slot);
+    }
+
+    private boolean tryEliminate(T value) {
+        var start = slotIndex();
+        for (int k = 0; k < SLOTS; k++) {
+            var i = (start + k) & (SLOTS - 1);
+            if (SLOT.getVolatile(offerSlots, i) instanceof ReceiveOffer offer
+                    && offer.tryFill(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int publish(SendOp op) {
+        var start = slotIndex();
+        for (int k = 0; k < SLOTS; k++) {
+            var i = (start + k) & (SLOTS - 1);
+            if (SLOT.compareAndSet(sendSlots, i, null, op)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private Object awaitSent(SendOp op, int slot) throws InterruptedException {
+        var interrupted = false;
+        var spinIterations = COMBINING_SPINS;
+        while (true) {
+            var state = op.state();
+            if (state == SendOp.DONE) {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+                return op.result;
+            } else if (state == SendOp.RETURNED) {
+                // the combiner couldn't send the value without blocking; the interrupt of the
+                // owner, received while the op was claimed, now takes effect
+                if (interrupted) {
+                    throw new InterruptedException();
+                }
+                //noinspection unchecked
+                return channel.sendOrClosed((T) op.value);
+            }
+
+            if (state == SendOp.PENDING && COMBINING.compareAndSet(this, 0, 1)) {
+                combine();
+            } else if (spinIterations > 0) {
+                Thread.onSpinWait();
+                spinIterations -= 1;
+            } else {
+                LockSupport.park(this);
+                if (Thread.interrupted()) {
+                    if (op.tryCancel()) {
+                        SLOT.compareAndSet(sendSlots, slot, op, null);
+                        throw new InterruptedException();
+                    } else {
+                        // the op is claimed by the combiner, which doesn't block - waiting until
+                        // the value is sent, or the op is handed back
+                        interrupted = true;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends the published values, while holding the combiner flag, without blocking. Releases the
+     * flag before returning.
+     */
+    private void combine() {
+        try {
+            var full = false;
+            for (int pass = 0; pass < COMBINING_PASSES && !full; pass++) {
+                var processed = false;
+                for (int i = 0; i < SLOTS; i++) {
+                    if (SLOT.getVolatile(sendSlots, i) instanceof SendOp op && op.tryClaim()) {
+                        processed = true;
+                        var result =
+                                full ? Channel.DEFAULT_NOT_SENT_VALUE : trySendOrClosed(op.value);
+                        // clearing the slot before completing, so that the owner can't reuse it
+                        // before it's cleared
+                        SLOT.compareAndSet(sendSlots, i, op, null);
+                        if (result == Channel.DEFAULT_NOT_SENT_VALUE) {
+                            // the channel is full: the owners have to block themselves
+                            full = true;
+                            op.handBack();
+                        } else {
+                            op.complete(result);
+                        }
+                    }
+                }
+                if (!processed) break;
+            }
+        } finally {
+            combining = 0;
+        }
+
+        // some ops might have been published after the last pass, and their owners parked: waking
+        // them up, so that one of them becomes the combiner
+        for (int i = 0; i < SLOTS; i++) {
+            if (SLOT.getVolatile(sendSlots, i) instanceof SendOp op
+                    && op.state() == SendOp.PENDING) {
+                LockSupport.unpark(op.owner);
+            }
+        }
+    }
+
+    /**
+     * @return {@code null}, if the value has been sent; {@link Channel#DEFAULT_NOT_SENT_VALUE}, if
+     *     it can't be sent without blocking; or {@link ChannelClosed}.
+     */
+    private Object trySendOrClosed(Object value) {
+        try {
+            //noinspection unchecked
+            return Select.selectOrClosed(
+                    channel.sendClause((T) value), Channel.DEFAULT_NOT_SENT_CLAUSE);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(
+                    "Interrupted during trySend, which should not be possible", e);
+        }
+    }
+
+    @Override
+    public SelectClause<Void> sendClause(T value) {
+        return channel.sendClause(value);
+    }
+
+    @Override
+    public <U> SelectClause<U> sendClause(T value, Supplier<U> callback) {
+        return channel.sendClause(value, callback);
+    }
+
+    // *********
+    // Receiving
+    // *********
+
+    @Override
+    public T receive() throws InterruptedException {
+        var r = receiveOrClosed();
+        if (r instanceof ChannelClosed c) {
+            throw c.toException();
+        } else {
+            //noinspection unchecked
+            return (T) r;
+        }
+    }
+
+    @Override
+    public Object receiveOrClosed() throws InterruptedException {
+        // when the channel is empty, the receive would block: giving senders a chance to hand over
+        // a value directly
+        if (ELIMINATION_SPINS > 0 && channel.isEmpty()) {
+            var offer = new ReceiveOffer();
+            var i = slotIndex();
+            if (SLOT.compareAndSet(offerSlots, i, null, offer)) {
+                for (int spin = 0; spin < ELIMINATION_SPINS && offer.value == null; spin++) {
+                    Thread.onSpinWait();
+                }
+                var cancelled = offer.tryCancel();
+                SLOT.compareAndSet(offerSlots, i, offer, null);
+                if (!cancelled) {
+                    return offer.value;
+                }
+            }
+        }
+
+        return channel.receiveOrClosed();
+    }
+
+    @Override
+    public SelectClause<T> receiveClause() {
+        return channel.receiveClause();
+    }
+
+    @Override
+    public <U> SelectClause<U> receiveClause(Function<T, U> callback) {
+        return channel.receiveClause(callback);
+    }
+
+    // *******
+    // Closing
+    // *******
+
+    @Override
+    public void done() {
+        channel.done();
+    }
+
+    @Override
+    public Object doneOrClosed() {
+        return channel.doneOrClosed();
+    }
+
+    @Override
+    public void error(Throwable reason) {
+        channel.error(reason);
+    }
+
+    @Override
+    public Object errorOrClosed(Throwable reason) {
+        return channel.errorOrClosed(reason);
+    }
+
+    @Override
+    public ChannelClosed closedForSend() {
+        return channel.closedForSend();
+    }
+
+    @Override
+    public ChannelClosed closedForReceive() {
+        return channel.closedForReceive();
+    }
+
+    // ****
+    // Misc
+    // ****
+
+    private static int slotIndex() {
+        // spreading the thread ids (Fibonacci hashing), so that threads start probing at different
+        // slots
+        return (int) ((Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L) >>> 58)
+                & (SLOTS - 1);
+    }
+
+    @Override
+    public String toString() {
+        return "CombiningChannel(" + channel + ")";
+    }
+
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(Object[].class);
+    private static final VarHandle COMBINING;
+
+    static {
+        try {
+            MethodHandles.Lookup l =
+                    MethodHandles.privateLookupIn(CombiningChannel.class, MethodHandles.lookup());
+            COMBINING = l.findVarHandle(CombiningChannel.class, "combining", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
+
+/** A value published by a sender, to be sent by the combiner. */
+final class SendOp {
+    static final int PENDING = 0;
+    static final int CLAIMED = 1;
+    static final int DONE = 2;
+    static final int CANCELLED = 3;
+    static final int RETURNED = 4;
+
+    final Object value;
+    final Thread owner;
+
+    /** {@code null}, or {@link ChannelClosed}; written before the state becomes DONE. */
+    Object result;
+
+    @SuppressWarnings("unused")
+    private volatile int state; // set using STATE var handle
+
+    SendOp(Object value) {
+        this.value = value;
+        this.owner = Thread.currentThread();
+    }
+
+    int state() {
+        return state;
+    }
+
+    boolean tryClaim() {
+        return STATE.compareAndSet(this, PENDING, CLAIMED);
+    }
+
+    /** Hands the op back to the owner, which then has to send the value itself. */
+    void handBack() {
+        state = RETURNED;
+        LockSupport.unpark(owner);
+    }
+
+    boolean tryCancel() {
+        return STATE.compareAndSet(this, PENDING, CANCELLED);
+    }
+
+    void complete(Object result) {
+        this.result = result;
+        state = DONE;
+        LockSupport.unpark(owner);
+    }
+
+    //
+
+    private static final VarHandle STATE;
+
+    static {
+        var l = MethodHandles.lookup();
+        try {
+            STATE = l.findVarHandle(SendOp.class, "state", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
+
+/** A receiver waiting in the elimination array for a value to be handed over by a sender. */
+final class ReceiveOffer {
+    private static final Object CANCELLED = new Object();
+
+    @SuppressWarnings("unused")
+    volatile Object value; // set using VALUE var handle
+
+    boolean tryFill(Object v) {
+        return VALUE.compareAndSet(this, null, v);
+    }
+
+    boolean tryCancel() {
+        return VALUE.compareAndSet(this, null, CANCELLED);
+    }
+
+    //
+
+    private static final VarHandle VALUE;
+
+    static {
+        var l = MethodHandles.lookup();
+        try {
+            VALUE = l.findVarHandle(ReceiveOffer.class, "value", Object.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
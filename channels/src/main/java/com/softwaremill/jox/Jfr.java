@@ -0,0 +1,21 @@
+package com.softwaremill.jox;
+
+/**
+ * JFR is an optional dependency: event classes, which extend {@code jdk.jfr.Event}, are only loaded
+ * if the {@code jdk.jfr} module is available. This is checked once, and shared by channels, selects
+ * and concurrency scopes.
+ */
+public final class Jfr {
+    /** When {@code false}, the event classes mustn't be used. */
+    static final boolean AVAILABLE = ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+
+    private Jfr() {}
+
+    /**
+     * @return {@code true}, if the {@code jdk.jfr} module is available, hence JFR events can be
+     *     emitted.
+     */
+    public static boolean isAvailable() {
+        return AVAILABLE;
+    }
+}
@@ -0,0 +1,96 @@
+package com.softwaremill.jox;
+
+import java.util.Iterator;
+import java.util.ServiceLoader;
+
+/**
+ * Service provider interface, which can be implemented to receive metrics from channels, selects,
+ * concurrency scopes and flows - e.g. to bridge them to a metrics library.
+ *
+ * <p>The implementation is discovered using the {@link ServiceLoader}, once, when the first channel
+ * is used: register it in {@code META-INF/services/com.softwaremill.jox.JoxMetrics}, or using
+ * {@code provides com.softwaremill.jox.JoxMetrics with ...} in {@code module-info.java}. If more
+ * than one implementation is available, the first one is used. When there's no implementation, the
+ * instrumentation is disabled, and the calls are eliminated by the JIT.
+ *
+ * <p>All methods have no-op default implementations. They are called on the threads performing the
+ * operations, often on hot paths: hence they must be thread-safe, complete quickly, must not block
+ * and must not throw exceptions.
+ */
+public interface JoxMetrics {
+    /**
+     * Called after a value has been sent to the given channel. Within a select, only called if the
+     * value is sent immediately, that is when the select doesn't suspend.
+     */
+    default void onSend(Channel<?> channel) {}
+
+    /**
+     * Called after a value has been received from the given channel. Within a select, only called
+     * if the value is received immediately, that is when the select doesn't suspend.
+     */
+    default void onReceive(Channel<?> channel) {}
+
+    /**
+     * Called when a send ({@code isSender} is {@code true}) or receive has to wait, as there's no
+     * matching party or buffer space.
+     */
+    default void onSuspend(Channel<?> channel, boolean isSender) {}
+
+    /** Called when a suspended operation has been resumed while busy-looping, without parking. */
+    default void onSpinSuccess() {}
+
+    /** Called when a suspended operation has been resumed after parking the thread. */
+    default void onPark() {}
+
+    /** Called when a new segment (a fixed-size block of a channel's cells) is allocated. */
+    default void onSegmentAllocated() {}
+
+    /** Called when a segment, all of whose cells have been interrupted or processed, is removed. */
+    default void onSegmentRemoved() {}
+
+    /** Called when a select with the given number of clauses is started. */
+    default void onSelect(int clauses) {}
+
+    /** Called when a fork starts running in a concurrency scope. */
+    default void onForkStarted() {}
+
+    /**
+     * Called when a fork fails with an exception. This includes forks interrupted when the
+     * concurrency scope ends.
+     */
+    default void onForkFailed(Throwable e) {}
+
+    /**
+     * Called when an element passes through a flow stage, marked with the given name. Only stages
+     * explicitly marked using {@code Flow.metered} are reported.
+     */
+    default void onFlowElement(String stage) {}
+
+    /**
+     * @return The discovered implementation, or a no-op one, if none is available.
+     */
+    static JoxMetrics current() {
+        return Metrics.INSTANCE;
+    }
+
+    /**
+     * @return {@code true}, if an implementation has been discovered.
+     */
+    static boolean isEnabled() {
+        return Metrics.ENABLED;
+    }
+}
+
+/** Holds the {@link JoxMetrics} implementation, discovered once. */
+final class Metrics {
+    static final JoxMetrics NO_OP = new JoxMetrics() {};
+
+    static final JoxMetrics INSTANCE = load(ServiceLoader.load(JoxMetrics.class).iterator());
+
+    /** When {@code false}, the call sites are guarded, so that the arguments aren't computed. */
+    static final boolean ENABLED = INSTANCE != NO_OP;
+
+    static JoxMetrics load(Iterator<JoxMetrics> implementations) {
+        return implementations.hasNext() ? implementations.next() : NO_OP;
+    }
+}
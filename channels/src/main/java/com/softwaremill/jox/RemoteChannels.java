@@ -0,0 +1,634 @@
+package com.softwaremill.jox;
+
+import static com.softwaremill.jox.Select.defaultClause;
+import static com.softwaremill.jox.Select.selectOrClosed;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Connects channels running in different processes (possibly on different machines), using TCP
+ * sockets. Both directions are supported:
+ *
+ * <ul>
+ *   <li>a local channel is made available to remote senders using {@link #serve(int, Channel)}. A
+ *       remote sender then obtains a {@link Sink} for that channel using {@link #connect(String,
+ *       int)}. Values sent to the sink are transmitted over the network and sent to the served
+ *       channel.
+ *   <li>a local channel is made available to remote receivers using {@link #serveSource(int,
+ *       Channel)}. A remote receiver then obtains a {@link Source} for that channel using {@link
+ *       #connectSource(String, int)}. Values sent to the served channel are received and
+ *       transmitted over the network, so that they can be received from the source.
+ * </ul>
+ *
+ * <p>Backpressure is preserved using credits: the receiving side grants the sending side a window
+ * of credits equal to the capacity of the served channel (1 for rendezvous channels, unlimited for
+ * unlimited channels); the channel on the other side has the same capacity. Each transmitted value
+ * consumes a credit, and credits are returned once values are sent to the channel on the receiving
+ * side. Hence, when that channel is full, the sending side blocks as well. Note that in addition to
+ * the values buffered in the receiving channel, up to about {@code 2 * capacity + 1} values might
+ * be in-flight: in the sending channel's buffer, in transit (bounded by the credit window), and one
+ * value held by the sending side while it waits for credits.
+ *
+ * <p>Values are transmitted in batches using length-prefixed frames: as many values, as are
+ * available in the local buffer and allowed by the credit window, are sent in a single frame.
+ * Values must be {@link Serializable}, and are transmitted using Java serialization. Received
+ * values (and errors) are deserialized using an {@link ObjectInputFilter}, which by default only
+ * allows classes from the {@code java.base} module (see {@link #DEFAULT_FILTER}). To transmit
+ * values of other classes, a filter allowing them has to be provided both when serving and
+ * connecting. Even so, remote channels should only be used to connect trusted peers.
+ *
+ * <p>Closing the sending channel (with {@link Sink#done()} or {@link Sink#error(Throwable)}) is
+ * propagated to the receiving one. If the receiving channel becomes closed, this is propagated to
+ * the sending one upon the next transmission. A broken connection closes both channels with an
+ * error.
+ */
+public final class RemoteChannels {
+    /**
+     * The filter used when deserializing received values and errors, if no other filter is given:
+     * only classes from the {@code java.base} module (and arrays of such classes) are allowed.
+     * Moreover, the depth of the object graph, the number of references, the length of arrays and
+     * the size of the serialized data are limited, so that a peer can't cause excessive resource
+     * usage using nested collections.
+     */
+    public static final ObjectInputFilter DEFAULT_FILTER =
+            ObjectInputFilter.Config.createFilter(
+                    "maxdepth=32;maxrefs=1000000;maxarray=1000000;maxbytes="
+                            + Frames.MAX_FRAME_LENGTH
+                            + ";java.base/*;!*");
+
+    private RemoteChannels() {}
+
+    /**
+     * Starts serving the given channel on the given port. The first incoming connection is
+     * accepted, and all values received from it are sent to {@code channel}. Any subsequent
+     * connections are rejected.
+     *
+     * @param port The port to listen on. When {@code 0}, an ephemeral port is chosen, which can be
+     *     obtained using {@link Server#port()}.
+     * @param channel The channel to which received values are sent.
+     * @return A handle to the server, which can be used to stop serving the channel.
+     */
+    public static <T> Server serve(int port, Channel<T> channel) throws IOException {
+        return serve(new InetSocketAddress(port), channel, DEFAULT_FILTER);
+    }
+
+    /**
+     * Starts serving the given channel on the given address. See {@link #serve(int, Channel)} for
+     * details.
+     */
+    public static <T> Server serve(InetSocketAddress address, Channel<T> channel)
+            throws IOException {
+        return serve(address, channel, DEFAULT_FILTER);
+    }
+
+    /**
+     * Starts serving the given channel on the given address. See {@link #serve(int, Channel)} for
+     * details.
+     *
+     * @param filter The filter used when deserializing the received values and errors. Classes
+     *     which aren't allowed by the filter cause the served channel to be closed with an error.
+     */
+    public static <T> Server serve(
+            InetSocketAddress address, Channel<T> channel, ObjectInputFilter filter)
+            throws IOException {
+        return startServer(
+                address,
+                channel,
+                s -> {
+                    Frames.write(s, Frames.helloFrame(channel.capacity()));
+                    receiveLoop(s, channel, filter);
+                });
+    }
+
+    /**
+     * Connects to a channel served using {@link #serve(int, Channel)}. Blocks until the connection
+     * is established.
+     *
+     * <p>The returned sink is backed by a local channel with the same capacity as the served
+     * channel. Values sent to the sink are transmitted in the background, as long as credits are
+     * available.
+     *
+     * @return A sink, to which values can be sent. Closing the sink closes the served channel.
+     */
+    public static <T> Sink<T> connect(String host, int port) throws IOException {
+        return connect(host, port, DEFAULT_FILTER);
+    }
+
+    /**
+     * Connects to a channel served using {@link #serve(int, Channel)}. See {@link #connect(String,
+     * int)} for details.
+     *
+     * @param filter The filter used when deserializing errors received from the served channel.
+     */
+    public static <T> Sink<T> connect(String host, int port, ObjectInputFilter filter)
+            throws IOException {
+        var socket = SocketChannel.open(new InetSocketAddress(host, port));
+        try {
+            int capacity = readHello(socket);
+            Channel<T> local = newChannel(capacity);
+            var credits = new Semaphore(creditWindow(capacity));
+
+            var pump =
+                    Thread.ofVirtual()
+                            .name("jox-remote-send-" + port)
+                            .start(() -> runSendPump(socket, local, credits));
+            Thread.ofVirtual()
+                    .name("jox-remote-credits-" + port)
+                    .start(() -> runCreditReader(socket, local, credits, pump, filter));
+            return local;
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Starts serving the given channel on the given port, so that values can be received from it
+     * remotely. The first incoming connection is accepted, and all values sent to {@code channel}
+     * are received and transmitted to it. Any subsequent connections are rejected.
+     *
+     * @param port The port to listen on. When {@code 0}, an ephemeral port is chosen, which can be
+     *     obtained using {@link Server#port()}.
+     * @param channel The channel, from which values are received and transmitted.
+     * @return A handle to the server, which can be used to stop serving the channel.
+     */
+    public static <T> Server serveSource(int port, Channel<T> channel) throws IOException {
+        return serveSource(new InetSocketAddress(port), channel, DEFAULT_FILTER);
+    }
+
+    /**
+     * Starts serving the given channel on the given address, so that values can be received from it
+     * remotely. See {@link #serveSource(int, Channel)} for details.
+     */
+    public static <T> Server serveSource(InetSocketAddress address, Channel<T> channel)
+            throws IOException {
+        return serveSource(address, channel, DEFAULT_FILTER);
+    }
+
+    /**
+     * Starts serving the given channel on the given address, so that values can be received from it
+     * remotely. See {@link #serveSource(int, Channel)} for details.
+     *
+     * @param filter The filter used when deserializing errors received from the remote source.
+     */
+    public static <T> Server serveSource(
+            InetSocketAddress address, Channel<T> channel, ObjectInputFilter filter)
+            throws IOException {
+        return startServer(
+                address,
+                channel,
+                s -> {
+                    Frames.write(s, Frames.helloFrame(channel.capacity()));
+                    var credits = new Semaphore(creditWindow(channel.capacity()));
+                    var pump =
+                            Thread.ofVirtual()
+                                    .name("jox-remote-send-" + s.socket().getLocalPort())
+                                    .start(() -> runSendPump(s, channel, credits));
+                    runCreditReader(s, channel, credits, pump, filter);
+                });
+    }
+
+    /**
+     * Connects to a channel served using {@link #serveSource(int, Channel)}. Blocks until the
+     * connection is established.
+     *
+     * <p>The returned source is backed by a local channel with the same capacity as the served
+     * channel. Values are transmitted in the background, as long as there's space in the local
+     * channel.
+     *
+     * @return A source, from which values can be received. Closing the source closes the served
+     *     channel.
+     */
+    public static <T> Source<T> connectSource(String host, int port) throws IOException {
+        return connectSource(host, port, DEFAULT_FILTER);
+    }
+
+    /**
+     * Connects to a channel served using {@link #serveSource(int, Channel)}. See {@link
+     * #connectSource(String, int)} for details.
+     *
+     * @param filter The filter used when deserializing the received values and errors. Classes
+     *     which aren't allowed by the filter cause the source to be closed with an error.
+     */
+    public static <T> Source<T> connectSource(String host, int port, ObjectInputFilter filter)
+            throws IOException {
+        var socket = SocketChannel.open(new InetSocketAddress(host, port));
+        try {
+            Channel<T> local = newChannel(readHello(socket));
+            Thread.ofVirtual()
+                    .name("jox-remote-receive-" + port)
+                    .start(
+                            () -> {
+                                try (socket) {
+                                    receiveLoop(socket, local, filter);
+                                } catch (IOException e) {
+                                    local.errorOrClosed(e);
+                                }
+                            });
+            return local;
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /** The maximum number of values transmitted in a single frame. */
+    static final int MAX_BATCH_SIZE = 256;
+
+    private static int readHello(SocketChannel socket) throws IOException {
+        var hello = Frames.read(socket);
+        if (hello == null || hello.type() != Frames.HELLO) {
+            throw new IOException("Expected a handshake from the remote channel");
+        }
+        return hello.payload().getInt();
+    }
+
+    private static <T> Channel<T> newChannel(int capacity) {
+        if (capacity == 0) return Channel.newRendezvousChannel();
+        else if (capacity < 0) return Channel.newUnlimitedChannel();
+        else return Channel.newBufferedChannel(capacity);
+    }
+
+    private static int creditWindow(int capacity) {
+        // the additional credit for rendezvous channels allows a single value to be in-flight
+        if (capacity == 0) return 1;
+        else if (capacity < 0) return Integer.MAX_VALUE;
+        else return capacity;
+    }
+
+    // ************
+    // Sending side
+    // ************
+
+    private static <T> void runSendPump(
+            SocketChannel socket, Channel<T> channel, Semaphore credits) {
+        try {
+            var batch = new ArrayList<>();
+            while (true) {
+                // blocking until there's at least one value to transmit
+                var first = channel.receiveOrClosed();
+                if (first instanceof ChannelClosed cc) {
+                    Frames.write(socket, Frames.closedFrame(cc));
+                    return;
+                }
+
+                // and until the remote side has capacity to accept it
+                credits.acquire();
+                batch.add(first);
+
+                // then, batching any values that are immediately available, as long as credits
+                // allow
+                ChannelClosed closedAfterBatch = null;
+                while (batch.size() < MAX_BATCH_SIZE && credits.tryAcquire()) {
+                    var next = selectOrClosed(channel.receiveClause(), defaultClause(NoValue.NONE));
+                    if (next == NoValue.NONE) {
+                        credits.release();
+                        break;
+                    } else if (next instanceof ChannelClosed cc) {
+                        credits.release();
+                        closedAfterBatch = cc;
+                        break;
+                    } else {
+                        batch.add(next);
+                    }
+                }
+
+                Frames.write(socket, Frames.dataFrame(batch));
+                batch.clear();
+
+                if (closedAfterBatch != null) {
+                    Frames.write(socket, Frames.closedFrame(closedAfterBatch));
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            // the connection is no longer usable; the channel is already closed, or the server
+            // is being closed
+        } catch (IOException e) {
+            channel.errorOrClosed(e);
+            closeQuietly(socket);
+        }
+    }
+
+    private static <T> void runCreditReader(
+            SocketChannel socket,
+            Channel<T> channel,
+            Semaphore credits,
+            Thread pump,
+            ObjectInputFilter filter) {
+        try {
+            while (true) {
+                var frame = Frames.read(socket);
+                if (frame == null) {
+                    // the remote side closed the connection; if we've sent a done/error frame, the
+                    // channel is already closed, and this is a no-op
+                    channel.errorOrClosed(new EOFException("Remote channel closed the connection"));
+                    break;
+                }
+
+                switch (frame.type()) {
+                    case Frames.CREDIT -> credits.release(frame.payload().getInt());
+                    case Frames.DONE -> channel.doneOrClosed();
+                    case Frames.ERROR -> channel.errorOrClosed(Frames.readError(frame, filter));
+                    default ->
+                            throw new IOException(
+                                    "Unexpected frame type received from a remote channel: "
+                                            + frame.type());
+                }
+            }
+        } catch (IOException e) {
+            channel.errorOrClosed(e);
+        } finally {
+            // the connection is no longer usable; stopping the pump, in case it waits for credits
+            pump.interrupt();
+            // the pump completes promptly, so waiting for it even if this thread is interrupted
+            // (when closing the server), so that it doesn't outlive the connection
+            var interrupted = false;
+            while (true) {
+                try {
+                    pump.join();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) Thread.currentThread().interrupt();
+            closeQuietly(socket);
+        }
+    }
+
+    // **************
+    // Receiving side
+    // **************
+
+    private static <T> void receiveLoop(
+            SocketChannel socket, Channel<T> channel, ObjectInputFilter filter) throws IOException {
+        boolean returnCredits = channel.capacity() >= 0;
+
+        while (true) {
+            var frame = Frames.read(socket);
+            if (frame == null) {
+                channel.errorOrClosed(new EOFException("Remote channel closed the connection"));
+                return;
+            }
+
+            switch (frame.type()) {
+                case Frames.DATA -> {
+                    var values = Frames.readData(frame, filter);
+                    for (var v : values) {
+                        Object r;
+                        try {
+                            //noinspection unchecked
+                            r = channel.sendOrClosed((T) v);
+                        } catch (InterruptedException e) {
+                            channel.errorOrClosed(e);
+                            return;
+                        }
+                        if (r instanceof ChannelClosed cc) {
+                            // propagating the closed state to the sender
+                            Frames.write(socket, Frames.closedFrame(cc));
+                            return;
+                        }
+                    }
+                    if (returnCredits) {
+                        Frames.write(socket, Frames.creditFrame(values.length));
+                    }
+                }
+                case Frames.DONE -> {
+                    channel.doneOrClosed();
+                    return;
+                }
+                case Frames.ERROR -> {
+                    channel.errorOrClosed(Frames.readError(frame, filter));
+                    return;
+                }
+                default ->
+                        throw new IOException(
+                                "Unexpected frame type received from a remote channel: "
+                                        + frame.type());
+            }
+        }
+    }
+
+    // ******
+    // Server
+    // ******
+
+    private interface ConnectionHandler {
+        void handle(SocketChannel socket) throws IOException;
+    }
+
+    private static Server startServer(
+            InetSocketAddress address, Channel<?> channel, ConnectionHandler handler)
+            throws IOException {
+        var serverSocket = ServerSocketChannel.open();
+        try {
+            serverSocket.bind(address, 1);
+        } catch (IOException e) {
+            serverSocket.close();
+            throw e;
+        }
+
+        var server =
+                new Server(
+                        serverSocket,
+                        ((InetSocketAddress) serverSocket.getLocalAddress()).getPort());
+        server.thread =
+                Thread.ofVirtual()
+                        .name("jox-remote-serve-" + server.port())
+                        .start(() -> server.run(channel, handler));
+        return server;
+    }
+
+    /**
+     * A handle to a channel, which is served using {@link RemoteChannels#serve(int, Channel)} or
+     * {@link RemoteChannels#serveSource(int, Channel)}.
+     */
+    public static final class Server implements AutoCloseable {
+        private final ServerSocketChannel serverSocket;
+        private final int port;
+        private volatile SocketChannel socket;
+        private volatile Thread thread;
+
+        private Server(ServerSocketChannel serverSocket, int port) {
+            this.serverSocket = serverSocket;
+            this.port = port;
+        }
+
+        /** The port, on which the channel is served. */
+        public int port() {
+            return port;
+        }
+
+        /**
+         * Stops serving the channel, closing any active connection. The served channel is not
+         * closed, unless there's an active connection, in which case it is closed with an error.
+         */
+        @Override
+        public void close() throws InterruptedException {
+            closeQuietly(serverSocket);
+            var s = socket;
+            if (s != null) closeQuietly(s);
+            // the serving thread might be blocked, sending a value to the served channel
+            thread.interrupt();
+            thread.join();
+        }
+
+        private void run(Channel<?> channel, ConnectionHandler handler) {
+            try {
+                SocketChannel s;
+                try (serverSocket) {
+                    // only a single connection is accepted
+                    s = serverSocket.accept();
+                }
+                socket = s;
+                try (s) {
+                    handler.handle(s);
+                }
+            } catch (IOException e) {
+                if (socket != null) {
+                    // the connection is broken; if it was never established, the server was closed
+                    channel.errorOrClosed(e);
+                }
+            }
+        }
+    }
+
+    private static void closeQuietly(Closeable c) {
+        try {
+            c.close();
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    private enum NoValue {
+        NONE
+    }
+}
+
+/**
+ * Encoding & decoding of frames exchanged by remote channels. Each frame is prefixed with its
+ * length (4 bytes, not including the length itself), followed by the frame type (1 byte) and the
+ * payload.
+ */
+final class Frames {
+    static final byte HELLO = 1; // server -> client: capacity of the served channel
+    static final byte DATA = 2; // client -> server: a batch of values
+    static final byte CREDIT = 3; // server -> client: number of credits returned
+    static final byte DONE = 4; // both directions
+    static final byte ERROR = 5; // both directions: the serialized cause
+
+    static final int MAX_FRAME_LENGTH = 64 * 1024 * 1024;
+
+    record Frame(byte type, ByteBuffer payload) {}
+
+    private Frames() {}
+
+    static ByteBuffer helloFrame(int capacity) {
+        return frame(HELLO, ByteBuffer.allocate(4).putInt(0, capacity).array());
+    }
+
+    static ByteBuffer creditFrame(int credits) {
+        return frame(CREDIT, ByteBuffer.allocate(4).putInt(0, credits).array());
+    }
+
+    static ByteBuffer dataFrame(ArrayList<Object> values) throws IOException {
+        return frame(DATA, serialize(values.toArray()));
+    }
+
+    static ByteBuffer closedFrame(ChannelClosed closed) throws IOException {
+        if (closed instanceof ChannelError ce) {
+            Throwable cause = ce.cause();
+            byte[] serialized;
+            try {
+                serialized = serialize(cause);
+            } catch (NotSerializableException e) {
+                // the cause might reference non-serializable state; sending a description instead
+                var replacement = new RuntimeException(cause.toString());
+                replacement.setStackTrace(cause.getStackTrace());
+                serialized = serialize(replacement);
+            }
+            return frame(ERROR, serialized);
+        } else {
+            return frame(DONE, new byte[0]);
+        }
+    }
+
+    static Object[] readData(Frame frame, ObjectInputFilter filter) throws IOException {
+        return (Object[]) deserialize(frame, filter);
+    }
+
+    static Throwable readError(Frame frame, ObjectInputFilter filter) throws IOException {
+        return (Throwable) deserialize(frame, filter);
+    }
+
+    /**
+     * @return The next frame, or {@code null}, if the connection has been closed.
+     */
+    static Frame read(SocketChannel socket) throws IOException {
+        var lengthBuffer = ByteBuffer.allocate(4);
+        if (!readFully(socket, lengthBuffer)) return null;
+        int length = lengthBuffer.getInt(0);
+        if (length < 1 || length > MAX_FRAME_LENGTH) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+
+        var frameBuffer = ByteBuffer.allocate(length);
+        if (!readFully(socket, frameBuffer)) {
+            throw new EOFException("Connection closed while reading a frame");
+        }
+        frameBuffer.flip();
+        var type = frameBuffer.get();
+        return new Frame(type, frameBuffer.slice());
+    }
+
+    static void write(SocketChannel socket, ByteBuffer frame) throws IOException {
+        while (frame.hasRemaining()) {
+            socket.write(frame);
+        }
+    }
+
+    private static boolean readFully(SocketChannel socket, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (socket.read(buffer) < 0) {
+                if (buffer.position() == 0) return false;
+                throw new EOFException("Connection closed while reading a frame");
+            }
+        }
+        return true;
+    }
+
+    private static ByteBuffer frame(byte type, byte[] payload) {
+        var buffer = ByteBuffer.allocate(4 + 1 + payload.length);
+        buffer.putInt(1 + payload.length).put(type).put(payload);
+        return buffer.flip();
+    }
+
+    private static byte[] serialize(Object o) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new ObjectOutputStream(bytes)) {
+            out.writeObject(o);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(Frame frame, ObjectInputFilter filter) throws IOException {
+        var payload = frame.payload();
+        var bytes = new byte[payload.remaining()];
+        payload.get(bytes);
+        try (var in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            // classes rejected by the filter cause an InvalidClassException
+            in.setObjectInputFilter(filter);
+            return in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Cannot deserialize a value received from a remote channel", e);
+        }
+    }
+}
@@ -22,6 +22,15 @@ final class Segment {
     private static final int POINTERS_SHIFT = 12;
     static final Segment NULL_SEGMENT = new Segment(-1, null, 0, false);
 
+    /** Used in a channel's segment fields until the first segment is created. */
+    static final Segment UNINFLATED = new Segment(-2, null, 0, false);
+
+    /**
+     * Used in a channel's segment fields, if the channel is closed before the first segment is
+     * created.
+     */
+    static final Segment CLOSED_UNINFLATED = new Segment(-3, null, 0, false);
+
     /** Used in {@code next} to indicate that the segment is closed. */
     private static final Segment CLOSED = new Segment(-1, null, 0, false);
 
@@ -259,6 +268,7 @@ final class Segment {
             if (_prev != null && _prev.isRemoved()) continue;
 
             // the segment is now removed
+            if (Metrics.ENABLED) Metrics.INSTANCE.onSegmentRemoved();
             return;
         }
     }
@@ -341,6 +351,7 @@ final class Segment {
                 var newSegment =
                         new Segment(current.getId() + 1, current, 0, start.isRendezvousOrUnlimited);
                 if (current.setNextIfNull(newSegment)) {
+                    if (Metrics.ENABLED) Metrics.INSTANCE.onSegmentAllocated();
                     if (current.isRemoved()) {
                         // the current segment was a tail segment, so if it was logically removed,
                         // we need to remove it physically
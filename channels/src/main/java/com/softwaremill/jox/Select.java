@@ -8,6 +8,13 @@ import java.util.concurrent.TimeoutException;
 import java.util.concurrent.locks.LockSupport;
 import java.util.function.Supplier;
 
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
 public class Select {
     /*
     Inspired by Kotlin's implementation: https://github.com/Kotlin/kotlinx.coroutines/blob/master/kotlinx-coroutines-core/common/src/selects/Select.kt
@@ -232,6 +239,8 @@ public class Select {
         // clause
         var allRendezvous = verifyChannelsUnique_getAreAllRendezvous(clauses);
 
+        if (Metrics.ENABLED) Metrics.INSTANCE.onSelect(clauses.length);
+
         var si = new SelectInstance(clauses.length);
         for (int i = 0; i < clauses.length; i++) {
             SelectClause<?> clause = clauses[i];
@@ -333,7 +342,11 @@ final class SelectInstance {
      */
     private Object resultSelectedDuringRegistration;
 
+    /** Reported in JFR events. */
+    private final int clausesCount;
+
     SelectInstance(int clausesCount) {
+        this.clausesCount = clausesCount;
         storedClauses = new ArrayList<>(clausesCount);
     }
 
@@ -392,12 +405,22 @@ final class SelectInstance {
                 var currentThread = Thread.currentThread();
                 if (STATE.compareAndSet(this, SelectState.REGISTERING, currentThread)) {
                     var spinIterations = allRendezvous ? Continuation.RENDEZVOUS_SPINS : 0;
+                    var parked = false;
+                    // created only when parking, so that the fast path isn't affected
+                    SelectEvent event = null;
+                    Waiter[] waiters = null;
                     while (state == currentThread) {
                         // same logic as in Continuation
                         if (spinIterations > 0) {
                             Thread.onSpinWait();
                             spinIterations -= 1;
                         } else {
+                            if (!parked) {
+                                if (Jfr.AVAILABLE) event = SelectEvent.startIfEnabled();
+                                waiters = registerWaiters();
+                                parked = true;
+                            }
+
                             LockSupport.park();
 
                             if (Thread.interrupted()) {
@@ -406,6 +429,8 @@ final class SelectInstance {
                                     // since we changed the state, we know that none of the clauses
                                     // will become completed
                                     cleanup(null);
+                                    if (event != null) event.complete(clausesCount, true);
+                                    unregisterWaiters(waiters);
                                     throw new InterruptedException();
                                 } else {
                                     // another thread already changed the state; setting the
@@ -416,6 +441,8 @@ final class SelectInstance {
                             }
                         }
                     }
+                    if (event != null) event.complete(clausesCount, false);
+                    unregisterWaiters(waiters);
                     // inspect the updated state in next iteration
                 }
                 // else: CAS unsuccessful, retry
@@ -473,6 +500,33 @@ final class SelectInstance {
         }
     }
 
+    /**
+     * Registers the parked select in {@link Waiters}, once for each channel on which a clause is
+     * stored.
+     *
+     * @return The registered operations, or {@code null}, if tracking is disabled.
+     */
+    private Waiter[] registerWaiters() {
+        if (!Waiters.isTracking()) {
+            return null;
+        }
+
+        var waiters = new Waiter[storedClauses.size()];
+        for (int i = 0; i < waiters.length; i++) {
+            var stored = storedClauses.get(i);
+            waiters[i] = Waiters.register(stored.getClause().getChannel(), stored.isSender());
+        }
+        return waiters;
+    }
+
+    private static void unregisterWaiters(Waiter[] waiters) {
+        if (waiters != null) {
+            for (var waiter : waiters) {
+                if (waiter != null) waiter.unregister();
+            }
+        }
+    }
+
     private void cleanup(SelectClause<?> selected) {
         // cleaning up of all the clauses that were registered, except for the selected one
         for (var stored : storedClauses) {
@@ -649,3 +703,41 @@ enum RestartSelectMarker {
 enum TimeoutMarker {
     INSTANCE
 }
+
+/**
+ * JFR event, emitted when a select parks the thread. The duration of the event is the time spent
+ * waiting.
+ */
+@Name("jox.Select")
+@Label("Select")
+@Description("A select, which waited for one of its clauses to complete")
+@Category({"Jox", "Channels"})
+@Threshold("20 ms")
+final class SelectEvent extends Event {
+    @Label("Clauses")
+    int clauses;
+
+    @Label("Interrupted")
+    boolean interrupted;
+
+    /**
+     * @return A started event, or {@code null}, if the event isn't enabled.
+     */
+    static SelectEvent startIfEnabled() {
+        var event = new SelectEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    void complete(int clauses, boolean interrupted) {
+        end();
+        if (shouldCommit()) {
+            this.clauses = clauses;
+            this.interrupted = interrupted;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.softwaremill.jox;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * An opt-in watchdog, which reports channel operations that have been blocked (with the thread
+ * parked) for longer than a threshold. Useful to diagnose pipelines, which silently stop, e.g.
+ * because one of the stages is stuck in {@code send} on a full channel.
+ *
+ * <p>Started using {@link #start(Duration, Consumer)}; at most one detector can be running at a
+ * time. While running, each channel operation which parks the thread registers itself in a
+ * concurrent set, and deregisters when resumed. Operations which complete without parking aren't
+ * affected. A background thread periodically scans the registered operations, and reports each one
+ * which exceeds the threshold once, along with the blocked thread's stack trace.
+ *
+ * <p>To make the reports easier to read, channels can be named using {@link
+ * Channel#setName(String)}.
+ */
+public final class StallDetector implements AutoCloseable {
+    /**
+     * A channel operation, which has been blocked for longer than the threshold.
+     *
+     * @param channelName The name of the channel, see {@link Channel#name()}.
+     * @param isSender {@code true} for a blocked send, {@code false} for a blocked receive.
+     * @param thread The blocked thread.
+     * @param blockedFor For how long the operation has been blocked, when the stall was detected.
+     * @param stackTrace The stack trace of the blocked thread.
+     */
+    public record Stall(
+            String channelName,
+            boolean isSender,
+            Thread thread,
+            Duration blockedFor,
+            StackTraceElement[] stackTrace) {}
+
+    private static volatile StallDetector active;
+
+    private final long thresholdNanos;
+    private final long scanIntervalMillis;
+    private final Consumer<Stall> listener;
+    private final Thread scanner;
+
+    private StallDetector(Duration threshold, Consumer<Stall> listener) {
+        this.thresholdNanos = threshold.toNanos();
+        // a stall is reported at most 1.25 * threshold after the operation blocked
+        this.scanIntervalMillis = Math.max(1, threshold.toMillis() / 4);
+        this.listener = listener;
+        this.scanner =
+                Thread.ofPlatform().daemon().name("jox-stall-detector").unstarted(this::scan);
+    }
+
+    /**
+     * Starts a stall detector.
+     *
+     * @param threshold For how long an operation must be blocked, to be reported.
+     * @param listener Called with each stall, on the detector's thread.
+     * @return The running detector, which should be closed when no longer needed.
+     * @throws IllegalStateException When another detector is already running.
+     */
+    public static StallDetector start(Duration threshold, Consumer<Stall> listener) {
+        if (threshold.isNegative() || threshold.isZero()) {
+            throw new IllegalArgumentException("Threshold must be positive, but got: " + threshold);
+        }
+        if (listener == null) {
+            throw new NullPointerException();
+        }
+
+        synchronized (StallDetector.class) {
+            if (active != null) {
+                throw new IllegalStateException("A stall detector is already running");
+            }
+            var detector = new StallDetector(threshold, listener);
+            active = detector;
+            Waiters.stallDetectorStarted();
+            detector.scanner.start();
+            return detector;
+        }
+    }
+
+    /** Stops this detector. Operations which are blocked at that time are not reported anymore. */
+    @Override
+    public void close() throws InterruptedException {
+        synchronized (StallDetector.class) {
+            if (active != this) {
+                return; // already closed
+            }
+            active = null;
+            Waiters.stallDetectorStopped();
+        }
+        scanner.interrupt();
+        scanner.join();
+    }
+
+    private void scan() {
+        try {
+            while (true) {
+                Thread.sleep(scanIntervalMillis);
+
+                var now = System.nanoTime();
+                for (var waiter : Waiters.all()) {
+                    var blockedNanos = now - waiter.since;
+                    if (!waiter.reported && blockedNanos >= thresholdNanos) {
+                        waiter.reported = true;
+                        var stackTrace = waiter.thread.getStackTrace();
+                        // the operation might have been resumed in the meantime
+                        if (Waiters.isRegistered(waiter)) {
+                            report(
+                                    new Stall(
+                                            waiter.channel.name(),
+                                            waiter.isSender,
+                                            waiter.thread,
+                                            Duration.ofNanos(blockedNanos),
+                                            stackTrace));
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            // the detector is closed
+        }
+    }
+
+    private void report(Stall stall) {
+        try {
+            listener.accept(stall);
+        } catch (RuntimeException e) {
+            // not stopping the detector
+            var thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+    }
+}
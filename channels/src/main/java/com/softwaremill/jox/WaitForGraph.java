@@ -0,0 +1,194 @@
+package com.softwaremill.jox;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+/**
+ * Diagnostics of blocked channel operations: for each channel with parked senders or receivers,
+ * lists the waiting threads, along with their owners (e.g. forks in concurrency scopes), and the
+ * number of buffered values. This can be used to find which stage of a pipeline is backpressuring:
+ * the blocked senders and receivers show which stages wait on which channels.
+ *
+ * <p>Parked operations are tracked only when enabled, using {@link #setTracking(boolean)}, or the
+ * {@code jox.trackWaiters} system property (so that operations which parked before tracking was
+ * enabled at runtime are included as well). Tracking is also enabled while a {@link StallDetector}
+ * is running.
+ *
+ * <p>The graph is also available through JMX, once {@link #registerMBean()} is called.
+ */
+public final class WaitForGraph {
+    /** The name, under which the {@link ChannelDiagnosticsMXBean} is registered. */
+    public static final String MBEAN_NAME = "com.softwaremill.jox:type=ChannelDiagnostics";
+
+    /**
+     * A parked channel operation.
+     *
+     * @param thread The waiting thread.
+     * @param owner The owner of the thread, as set using {@link #setCurrentOwner(String)}, or
+     *     {@code null}.
+     * @param waitingFor For how long the operation has been waiting, when the snapshot was taken.
+     */
+    public record WaitingOperation(Thread thread, String owner, Duration waitingFor) {}
+
+    /**
+     * A channel with parked operations.
+     *
+     * @param channelName See {@link Channel#name()}.
+     * @param capacity See {@link Channel#capacity()}.
+     * @param buffered The approximate number of buffered values.
+     * @param closed Whether the channel is closed for sending.
+     * @param waitingSenders Parked senders, the longest-waiting first.
+     * @param waitingReceivers Parked receivers, the longest-waiting first.
+     */
+    public record ChannelNode(
+            String channelName,
+            int capacity,
+            long buffered,
+            boolean closed,
+            List<WaitingOperation> waitingSenders,
+            List<WaitingOperation> waitingReceivers) {}
+
+    private WaitForGraph() {}
+
+    /** Enables or disables tracking of parked channel operations. */
+    public static void setTracking(boolean enabled) {
+        Waiters.setGraphTracking(enabled);
+    }
+
+    /**
+     * @return {@code true}, if parked channel operations are currently tracked.
+     */
+    public static boolean isTracking() {
+        return Waiters.isTracking();
+    }
+
+    /**
+     * Sets the owner of the current thread, reported for the channel operations which park it.
+     * Concurrency scopes set the owner of each fork's thread, if tracking is enabled when the fork
+     * starts, and clear it when the fork completes.
+     *
+     * @param owner The owner, or {@code null} to clear it.
+     */
+    public static void setCurrentOwner(String owner) {
+        Waiters.currentOwner.set(owner);
+    }
+
+    /**
+     * @return The channels which have parked operations, sorted by name. Empty, if tracking is
+     *     disabled.
+     */
+    public static List<ChannelNode> snapshot() {
+        var now = System.nanoTime();
+        var byChannel = new IdentityHashMap<Channel<?>, List<Waiter>>();
+        for (var waiter : Waiters.all()) {
+            byChannel.computeIfAbsent(waiter.channel, c -> new ArrayList<>()).add(waiter);
+        }
+
+        var nodes = new ArrayList<ChannelNode>(byChannel.size());
+        for (var entry : byChannel.entrySet()) {
+            var channel = entry.getKey();
+            var waiters = entry.getValue();
+            waiters.sort(Comparator.comparingLong(w -> w.since));
+
+            var senders = new ArrayList<WaitingOperation>();
+            var receivers = new ArrayList<WaitingOperation>();
+            for (var waiter : waiters) {
+                var op =
+                        new WaitingOperation(
+                                waiter.thread, waiter.owner, Duration.ofNanos(now - waiter.since));
+                (waiter.isSender ? senders : receivers).add(op);
+            }
+
+            nodes.add(
+                    new ChannelNode(
+                            channel.name(),
+                            channel.capacity(),
+                            channel.bufferedCount(),
+                            channel.isClosedForSend(),
+                            List.copyOf(senders),
+                            List.copyOf(receivers)));
+        }
+
+        nodes.sort(Comparator.comparing(ChannelNode::channelName));
+        return nodes;
+    }
+
+    /**
+     * @return A human-readable rendering of the {@link #snapshot()}.
+     */
+    public static String dump() {
+        var nodes = snapshot();
+        var sb = new StringBuilder();
+        if (!isTracking()) {
+            sb.append("Tracking of parked channel operations is disabled\n");
+        }
+        sb.append("Channels with parked operations: ").append(nodes.size()).append("\n");
+        for (var node : nodes) {
+            sb.append(node.channelName())
+                    .append(" (capacity=")
+                    .append(node.capacity())
+                    .append(", buffered=")
+                    .append(node.buffered())
+                    .append(", closed=")
+                    .append(node.closed())
+                    .append(")\n");
+            appendOperations(sb, "waiting senders", node.waitingSenders());
+            appendOperations(sb, "waiting receivers", node.waitingReceivers());
+        }
+        return sb.toString();
+    }
+
+    private static void appendOperations(
+            StringBuilder sb, String label, List<WaitingOperation> operations) {
+        sb.append("  ").append(label).append(": ").append(operations.size()).append("\n");
+        for (var op : operations) {
+            sb.append("    ").append(op.thread());
+            if (op.owner() != null) {
+                sb.append(" owned by ").append(op.owner());
+            }
+            sb.append(", for ").append(op.waitingFor().toMillis()).append("ms\n");
+        }
+    }
+
+    /**
+     * Registers the {@link ChannelDiagnosticsMXBean} in the platform MBean server, under {@link
+     * #MBEAN_NAME}, if it's not yet registered. Requires the {@code java.management} module.
+     */
+    public static void registerMBean() throws JMException {
+        var server = ManagementFactory.getPlatformMBeanServer();
+        var name = new ObjectName(MBEAN_NAME);
+        synchronized (WaitForGraph.class) {
+            if (!server.isRegistered(name)) {
+                server.registerMBean(
+                        new StandardMBean(
+                                new ChannelDiagnostics(), ChannelDiagnosticsMXBean.class, true),
+                        name);
+            }
+        }
+    }
+}
+
+final class ChannelDiagnostics implements ChannelDiagnosticsMXBean {
+    @Override
+    public String getWaitForGraph() {
+        return WaitForGraph.dump();
+    }
+
+    @Override
+    public boolean isTracking() {
+        return WaitForGraph.isTracking();
+    }
+
+    @Override
+    public void setTracking(boolean enabled) {
+        WaitForGraph.setTracking(enabled);
+    }
+}
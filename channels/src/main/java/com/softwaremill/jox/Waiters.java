@@ -0,0 +1,106 @@
+package com.softwaremill.jox;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A registry of channel operations, which parked their thread. Operations are registered only while
+ * a {@link StallDetector} is running, or {@link WaitForGraph} tracking is enabled (using the {@code
+ * jox.trackWaiters} system property, or at runtime). Otherwise, registration is a single volatile
+ * read.
+ *
+ * <p>A concurrent set is used, so that there's no global lock when registering operations.
+ */
+final class Waiters {
+    private static final Set<Waiter> registered = ConcurrentHashMap.newKeySet();
+
+    /** The owner of the current thread, as set using {@link WaitForGraph#setCurrentOwner}. */
+    static final ThreadLocal<String> currentOwner = new ThreadLocal<>();
+
+    // modified only while holding the class lock
+    private static boolean graphTracking = Boolean.getBoolean("jox.trackWaiters");
+    private static int stallDetectors = 0;
+
+    private static volatile boolean tracking = graphTracking;
+
+    private Waiters() {}
+
+    static synchronized void setGraphTracking(boolean enabled) {
+        graphTracking = enabled;
+        updateTracking();
+    }
+
+    static synchronized void stallDetectorStarted() {
+        stallDetectors += 1;
+        updateTracking();
+    }
+
+    static synchronized void stallDetectorStopped() {
+        stallDetectors -= 1;
+        updateTracking();
+    }
+
+    private static void updateTracking() {
+        tracking = graphTracking || stallDetectors > 0;
+        if (!tracking) {
+            registered.clear();
+        }
+    }
+
+    static boolean isTracking() {
+        return tracking;
+    }
+
+    /**
+     * Registers a channel operation, which is about to park the thread.
+     *
+     * @return The registered operation, or {@code null}, if tracking is disabled.
+     */
+    static Waiter register(Channel<?> channel, boolean isSender) {
+        if (!tracking) {
+            return null;
+        }
+
+        var waiter = new Waiter(channel, isSender, currentOwner.get());
+        registered.add(waiter);
+        return waiter;
+    }
+
+    static Set<Waiter> all() {
+        return registered;
+    }
+
+    static boolean isRegistered(Waiter waiter) {
+        return registered.contains(waiter);
+    }
+
+    static void unregister(Waiter waiter) {
+        registered.remove(waiter);
+    }
+}
+
+/** A channel operation, which parked its thread. */
+final class Waiter {
+    final Channel<?> channel;
+    final boolean isSender;
+    final Thread thread;
+    final long since;
+
+    /** The owner of the waiting thread, if known, e.g. a fork in a concurrency scope. */
+    final String owner;
+
+    /** Only accessed by the stall detector's thread. */
+    boolean reported;
+
+    Waiter(Channel<?> channel, boolean isSender, String owner) {
+        this.channel = channel;
+        this.isSender = isSender;
+        this.owner = owner;
+        this.thread = Thread.currentThread();
+        this.since = System.nanoTime();
+    }
+
+    void unregister() {
+        Waiters.unregister(this);
+    }
+}
@@ -0,0 +1,23 @@
+package com.softwaremill.jox;
+
+/**
+ * Notified when the occupancy of a channel crosses the watermarks set using {@link
+ * Channel#setWatermarks(long, long, WatermarkListener)}.
+ *
+ * <p>The methods are called on the thread which completed the send or receive operation that
+ * crossed the watermark, hence they should complete quickly and must not block. Any exceptions
+ * thrown are passed to the thread's uncaught exception handler.
+ */
+public interface WatermarkListener {
+    /**
+     * Called when the occupancy of the channel reaches the high watermark, after having been below
+     * it.
+     */
+    void onHighWatermark(Channel<?> channel);
+
+    /**
+     * Called when the occupancy of the channel drops to the low watermark, after having reached the
+     * high watermark.
+     */
+    void onLowWatermark(Channel<?> channel);
+}
@@ -1,3 +1,10 @@
 module com.softwaremill.jox {
+    // optional: JMX is only needed to register the diagnostics MBean, and JFR events are only
+    // emitted if JFR is available
+    requires static java.management;
+    requires static jdk.jfr;
+
     exports com.softwaremill.jox;
+
+    uses com.softwaremill.jox.JoxMetrics;
 }
@@ -0,0 +1,115 @@
+package com.softwaremill.jox;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Guards the allocation-free fast paths of buffered and unlimited channels: when a value can be
+ * sent or received without suspending, the only allocations should be the segments, which are
+ * shared by {@link Segment#SEGMENT_SIZE} cells, and amount to ~3 bytes per operation. Any
+ * per-operation allocation (boxing, a continuation, a capturing lambda) costs at least 16 bytes.
+ *
+ * <p>Allocations are measured using the allocation counter of the current thread (read through JMX,
+ * as the {@code jdk.management} module isn't available to the tests), so the tests are skipped if
+ * the JVM doesn't support it.
+ */
+public class ChannelAllocationTest {
+    private static final int OPERATIONS = 100_000;
+    private static final double MAX_BYTES_PER_OPERATION = 8;
+
+    private static final Object VALUE = new Object();
+
+    @Test
+    void bufferedSendReceiveShouldNotAllocate() throws InterruptedException {
+        Channel<Object> channel = Channel.newBufferedChannel(16);
+        assertAllocationFree(
+                () -> {
+                    channel.send(VALUE);
+                    channel.receive();
+                });
+    }
+
+    @Test
+    void bufferedSendReceiveOrClosedShouldNotAllocate() throws InterruptedException {
+        Channel<Object> channel = Channel.newBufferedChannel(16);
+        assertAllocationFree(
+                () -> {
+                    channel.sendOrClosed(VALUE);
+                    channel.receiveOrClosed();
+                });
+    }
+
+    @Test
+    void unlimitedSendReceiveShouldNotAllocate() throws InterruptedException {
+        Channel<Object> channel = Channel.newUnlimitedChannel();
+        assertAllocationFree(
+                () -> {
+                    channel.send(VALUE);
+                    channel.receive();
+                });
+    }
+
+    @Test
+    void bufferedSendReceiveInBatchesShouldNotAllocate() throws InterruptedException {
+        Channel<Object> channel = Channel.newBufferedChannel(100);
+        assertAllocationFree(
+                () -> {
+                    for (int i = 0; i < 100; i++) channel.send(VALUE);
+                    for (int i = 0; i < 100; i++) channel.receive();
+                },
+                200);
+    }
+
+    private interface Operation {
+        void run() throws InterruptedException;
+    }
+
+    private static void assertAllocationFree(Operation op) throws InterruptedException {
+        assertAllocationFree(op, 2);
+    }
+
+    private static void assertAllocationFree(Operation op, int channelOperationsPerRun)
+            throws InterruptedException {
+        if (currentThreadAllocatedBytes() < 0) {
+            Assumptions.abort("thread allocation counters are not available");
+        }
+
+        // warm-up, so that the code is compiled, and escape analysis applies
+        var runs = OPERATIONS / channelOperationsPerRun;
+        for (int i = 0; i < 20 * runs; i++) op.run();
+
+        var before = currentThreadAllocatedBytes();
+        for (int i = 0; i < runs; i++) op.run();
+        var allocated = currentThreadAllocatedBytes() - before;
+
+        var bytesPerOperation = (double) allocated / (runs * channelOperationsPerRun);
+        assertTrue(
+                bytesPerOperation < MAX_BYTES_PER_OPERATION,
+                "expected at most "
+                        + MAX_BYTES_PER_OPERATION
+                        + " bytes per operation (amortized segments), but got "
+                        + bytesPerOperation);
+    }
+
+    /**
+     * @return The number of bytes allocated by the current thread so far, or -1, if not supported.
+     */
+    private static long currentThreadAllocatedBytes() {
+        try {
+            return (long)
+                    ManagementFactory.getPlatformMBeanServer()
+                            .getAttribute(
+                                    new ObjectName(ManagementFactory.THREAD_MXBEAN_NAME),
+                                    "CurrentThreadAllocatedBytes");
+        } catch (JMException e) {
+            return -1;
+        }
+    }
+}
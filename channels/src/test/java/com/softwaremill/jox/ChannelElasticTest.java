@@ -0,0 +1,283 @@
+package com.softwaremill.jox;
+
+import static com.softwaremill.jox.TestUtil.forkVoid;
+import static com.softwaremill.jox.TestUtil.scoped;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/** Tests of elastic channels, whose capacity changes at runtime. */
+public class ChannelElasticTest {
+    @Test
+    @Timeout(1)
+    void shouldAcceptMoreValuesAfterGrowing() throws InterruptedException {
+        // given
+        Channel<Integer> channel = Channel.newElasticChannel(2);
+        assertTrue(channel.trySend(1));
+        assertTrue(channel.trySend(2));
+        assertFalse(channel.trySend(3));
+
+        // when
+        channel.setCapacity(4);
+
+        // then
+        assertEquals(4, channel.capacity());
+        assertTrue(channel.trySend(4));
+        assertTrue(channel.trySend(5));
+        assertFalse(channel.trySend(6));
+
+        assertEquals(1, channel.receive());
+        assertEquals(2, channel.receive());
+        assertEquals(4, channel.receive());
+        assertEquals(5, channel.receive());
+    }
+
+    @Test
+    @Timeout(1)
+    void shouldResumeABlockedSenderWhenGrowing() throws InterruptedException, ExecutionException {
+        // given
+        Channel<Integer> channel = Channel.newElasticChannel(1);
+        channel.send(1);
+
+        scoped(
+                scope -> {
+                    var f = forkVoid(scope, () -> channel.send(2));
+                    Thread.sleep(100);
+                    assertFalse(f.isDone());
+
+                    // when
+                    channel.setCapacity(2);
+
+                    // then
+                    f.get();
+                    assertEquals(1, channel.receive());
+                    assertEquals(2, channel.receive());
+                });
+    }
+
+    @Test
+    @Timeout(1)
+    void shouldShrinkAsValuesAreReceived() throws InterruptedException {
+        // given
+        Channel<Integer> channel = Channel.newElasticChannel(4);
+        for (int i = 1; i <= 4; i++) {
+            channel.send(i);
+        }
+
+        // when
+        channel.setCapacity(2);
+
+        // then
+        // buffered values are never discarded
+        assertEquals(2, channel.capacity());
+        assertEquals(1, channel.receive());
+        assertFalse(channel.trySend(5));
+        assertEquals(2, channel.receive());
+        assertEquals(3, channel.receive());
+
+        // value 4 is buffered, one more fits
+        assertTrue(channel.trySend(6));
+        assertFalse(channel.trySend(7));
+
+        assertEquals(4, channel.receive());
+        assertEquals(6, channel.receive());
+    }
+
+    @Test
+    @Timeout(1)
+    void shouldCancelAPendingShrinkWhenGrowing() throws InterruptedException {
+        // given
+        Channel<Integer> channel = Channel.newElasticChannel(2);
+        channel.send(1);
+        channel.send(2);
+
+        // when
+        channel.setCapacity(1);
+        channel.setCapacity(2);
+
+        // then
+        assertEquals(1, channel.receive());
+        assertTrue(channel.trySend(3));
+        assertFalse(channel.trySend(4));
+    }
+
+    @Test
+    @Timeout(1)
+    void shouldReceiveBufferedValuesWhenDoneAfterShrinking() throws InterruptedException {
+        // given
+        Channel<Integer> channel = Channel.newElasticChannel(3);
+        channel.send(1);
+        channel.send(2);
+        channel.send(3);
+        channel.setCapacity(1);
+
+        // when
+        channel.done();
+
+        // then
+        assertEquals(List.of(1, 2, 3), channel.toList());
+    }
+
+    @Test
+    void shouldValidateCapacities() {
+        assertThrows(
+                IllegalStateException.class, () -> Channel.newBufferedChannel(2).setCapacity(3));
+        assertThrows(IllegalArgumentException.class, () -> Channel.newElasticChannel(0));
+        assertThrows(IllegalArgumentException.class, () -> Channel.newElasticChannel(5, 1, 4));
+        assertThrows(IllegalArgumentException.class, () -> Channel.newElasticChannel(2, 0, 4));
+
+        var channel = Channel.newElasticChannel(2, 2, 4);
+        assertThrows(IllegalArgumentException.class, () -> channel.setCapacity(1));
+        assertThrows(IllegalArgumentException.class, () -> channel.setCapacity(5));
+    }
+
+    @Test
+    @Timeout(5)
+    void shouldGrowWhenSendersBlock() throws InterruptedException, ExecutionException {
+        // given
+        Channel<Integer> channel = Channel.newElasticChannel(1, 1, 64);
+        channel.send(0);
+
+        // when
+        scoped(
+                scope -> {
+                    // each sender blocks, as the channel is full
+                    for (int i = 1; i <= Channel.AUTO_TUNE_WINDOW; i++) {
+                        var v = i;
+                        forkVoid(scope, () -> channel.send(v));
+                    }
+
+                    // then
+                    await().atMost(1, SECONDS).until(() -> channel.capacity() == 2);
+
+                    var received = new HashSet<Integer>();
+                    for (int i = 0; i <= Channel.AUTO_TUNE_WINDOW; i++) {
+                        received.add(channel.receive());
+                    }
+                    assertEquals(Channel.AUTO_TUNE_WINDOW + 1, received.size());
+                });
+    }
+
+    @Test
+    @Timeout(5)
+    void shouldShrinkWhenReceiversBlock() throws InterruptedException, ExecutionException {
+        // given
+        Channel<Integer> channel = Channel.newElasticChannel(64, 1, 64);
+        var received = ConcurrentHashMap.<Integer>newKeySet();
+
+        // when
+        scoped(
+                scope -> {
+                    // each receiver blocks, as the channel is empty
+                    for (int i = 0; i < Channel.AUTO_TUNE_WINDOW; i++) {
+                        forkVoid(scope, () -> received.add(channel.receive()));
+                    }
+
+                    // then
+                    await().atMost(1, SECONDS).until(() -> channel.capacity() == 32);
+
+                    for (int i = 0; i < Channel.AUTO_TUNE_WINDOW; i++) {
+                        channel.send(i);
+                    }
+                });
+        assertEquals(Channel.AUTO_TUNE_WINDOW, received.size());
+    }
+
+    @Test
+    void shouldRejectHugeCapacityIncreases() {
+        // given
+        Channel<Integer> channel = Channel.newElasticChannel(2);
+
+        // then
+        assertThrows(IllegalArgumentException.class, () -> channel.setCapacity(Integer.MAX_VALUE));
+        assertEquals(2, channel.capacity());
+
+        channel.setCapacity(2 + Channel.MAX_CAPACITY_INCREASE);
+        assertEquals(2 + Channel.MAX_CAPACITY_INCREASE, channel.capacity());
+    }
+
+    @Test
+    @Timeout(1)
+    void shouldIgnoreShrinksAfterClosing() throws InterruptedException {
+        // given
+        Channel<Integer> channel = Channel.newElasticChannel(4);
+        channel.send(1);
+        channel.send(2);
+        channel.done();
+
+        // when
+        channel.setCapacity(1);
+
+        // then
+        assertEquals(List.of(1, 2), channel.toList());
+    }
+
+    @Test
+    @Timeout(10)
+    void shouldDeliverAllValuesWhenCapacityChangesConcurrently()
+            throws InterruptedException, ExecutionException {
+        // given
+        Channel<Integer> channel = Channel.newElasticChannel(8, 1, 32);
+        var received = ConcurrentHashMap.<Integer>newKeySet();
+        var senders = 4;
+        var perSender = 5000;
+
+        // when
+        scoped(
+                scope -> {
+                    var sendForks = new ArrayList<Future<Void>>();
+                    for (int t = 0; t < senders; t++) {
+                        var base = t * perSender;
+                        sendForks.add(
+                                forkVoid(
+                                        scope,
+                                        () -> {
+                                            for (int i = 0; i < perSender; i++) {
+                                                channel.send(base + i);
+                                            }
+                                        }));
+                    }
+                    for (int t = 0; t < 4; t++) {
+                        forkVoid(
+                                scope,
+                                () -> {
+                                    while (true) {
+                                        var r = channel.receiveOrClosed();
+                                        if (r instanceof ChannelClosed) return;
+                                        received.add((Integer) r);
+                                    }
+                                });
+                    }
+                    var resizer =
+                            forkVoid(
+                                    scope,
+                                    () -> {
+                                        while (!channel.isClosedForSend()) {
+                                            channel.setCapacity(
+                                                    ThreadLocalRandom.current().nextInt(1, 33));
+                                            Thread.yield();
+                                        }
+                                    });
+
+                    for (var f : sendForks) f.get();
+                    channel.done();
+                    resizer.get();
+                });
+
+        // then
+        var expected = new HashSet<Integer>();
+        for (int i = 0; i < senders * perSender; i++) expected.add(i);
+        assertEquals(expected, received);
+    }
+}
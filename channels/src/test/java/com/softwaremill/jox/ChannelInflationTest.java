@@ -0,0 +1,178 @@
+package com.softwaremill.jox;
+
+import static com.softwaremill.jox.TestUtil.fork;
+import static com.softwaremill.jox.TestUtil.forkVoid;
+import static com.softwaremill.jox.TestUtil.scoped;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/** Tests of the lazy creation of a channel's segments. */
+public class ChannelInflationTest {
+    @Test
+    void shouldNotCreateSegmentsForIdleChannels() {
+        assertFalse(Channel.newRendezvousChannel().isInflated());
+        assertFalse(Channel.newBufferedChannel(16).isInflated());
+        assertFalse(Channel.newBufferedChannel(1000).isInflated());
+        assertFalse(Channel.newUnlimitedChannel().isInflated());
+    }
+
+    @Test
+    @Timeout(1)
+    void shouldCreateSegmentsOnFirstSend() throws InterruptedException {
+        // given
+        Channel<String> channel = Channel.newBufferedChannel(2);
+
+        // when
+        channel.send("a");
+
+        // then
+        assertTrue(channel.isInflated());
+        assertEquals("a", channel.receive());
+    }
+
+    @Test
+    @Timeout(1)
+    void shouldNotCreateSegmentsWhenClosingAnIdleChannel() throws InterruptedException {
+        for (var channel :
+                List.<Channel<String>>of(
+                        Channel.newRendezvousChannel(),
+                        Channel.newBufferedChannel(16),
+                        Channel.newUnlimitedChannel())) {
+            // when
+            channel.done();
+
+            // then
+            assertFalse(channel.isInflated());
+            assertInstanceOf(ChannelDone.class, channel.closedForReceive());
+            assertInstanceOf(ChannelDone.class, channel.receiveOrClosed());
+            assertInstanceOf(ChannelDone.class, channel.sendOrClosed("a"));
+            assertFalse(channel.isInflated());
+        }
+    }
+
+    @Test
+    @Timeout(1)
+    void shouldNotCreateSegmentsWhenPrintingAnIdleChannel() {
+        // given
+        Channel<String> channel = Channel.newBufferedChannel(16);
+
+        // when
+        var s = channel.toString();
+
+        // then
+        assertFalse(channel.isInflated());
+        assertTrue(s.contains("not inflated"), s);
+    }
+
+    @Test
+    @Timeout(5)
+    void shouldCloseChannelsWhileTheFirstReceiveIsInProgress()
+            throws InterruptedException, ExecutionException {
+        for (int k = 0; k < 100; k++) {
+            // given
+            Channel<Integer> channel = Channel.newBufferedChannel(k % 3);
+            var barrier = new CyclicBarrier(2);
+
+            // when
+            scoped(
+                    scope -> {
+                        var receiver =
+                                fork(
+                                        scope,
+                                        () -> {
+                                            barrier.await();
+                                            return channel.receiveOrClosed();
+                                        });
+                        barrier.await();
+                        channel.done();
+
+                        // then
+                        assertInstanceOf(ChannelDone.class, receiver.get());
+                    });
+        }
+    }
+
+    @Test
+    @Timeout(1)
+    void shouldCreateSegmentsOnElasticGrowth() throws InterruptedException {
+        // given
+        Channel<Integer> channel = Channel.newElasticChannel(1);
+
+        // when
+        channel.setCapacity(3);
+
+        // then
+        assertTrue(channel.isInflated());
+        channel.send(1);
+        channel.send(2);
+        channel.send(3);
+        assertEquals(1, channel.receive());
+    }
+
+    @Test
+    @Timeout(1)
+    void shouldProcessTheInitialBufferSpanningMultipleSegments() throws InterruptedException {
+        // given
+        Channel<Integer> channel = Channel.newBufferedChannel(100);
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            channel.send(i);
+        }
+
+        // then
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, channel.receive());
+        }
+    }
+
+    @Test
+    @Timeout(5)
+    void shouldHandleConcurrentFirstOperations() throws InterruptedException, ExecutionException {
+        for (int k = 0; k < 100; k++) {
+            // given
+            Channel<Integer> channel = Channel.newBufferedChannel(k % 3);
+            var barrier = new CyclicBarrier(4);
+
+            // when
+            scoped(
+                    scope -> {
+                        for (int t = 0; t < 2; t++) {
+                            var sender = t;
+                            forkVoid(
+                                    scope,
+                                    () -> {
+                                        barrier.await();
+                                        channel.send(sender);
+                                    });
+                        }
+
+                        var receivers = new ArrayList<Future<Integer>>();
+                        for (int t = 0; t < 2; t++) {
+                            receivers.add(
+                                    fork(
+                                            scope,
+                                            () -> {
+                                                barrier.await();
+                                                return channel.receive();
+                                            }));
+                        }
+
+                        // then
+                        var sum = 0;
+                        for (var r : receivers) {
+                            sum += r.get();
+                        }
+                        assertEquals(1, sum);
+                    });
+        }
+    }
+}
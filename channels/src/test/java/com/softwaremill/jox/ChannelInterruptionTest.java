@@ -4,6 +4,7 @@ import static com.softwaremill.jox.TestUtil.*;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -181,4 +182,52 @@ public class ChannelInterruptionTest {
                     assertEquals(2, segments, "More than 2 segments found in channel:\n" + ch);
                 });
     }
+
+    @Test
+    void testInterruptionsDuringTrafficShouldNotLeakSegments()
+            throws InterruptedException, ExecutionException {
+        var ch = Channel.<Integer>newRendezvousChannel();
+
+        scoped(
+                scope -> {
+                    // given
+                    var producer =
+                            fork(
+                                    scope,
+                                    () -> {
+                                        for (int i = 0; i < 10_000; i++) ch.send(i);
+                                        return null;
+                                    });
+                    var consumer =
+                            fork(
+                                    scope,
+                                    () -> {
+                                        // some of the values might be received by the victims
+                                        while (true) {
+                                            if (ch.receiveOrClosed() instanceof ChannelDone) {
+                                                return null;
+                                            }
+                                        }
+                                    });
+
+                    // when
+                    for (int i = 0; i < 1000; i++) {
+                        var victim =
+                                forkCancelable(
+                                        scope,
+                                        () -> {
+                                            ch.receive();
+                                        });
+                        victim.cancel();
+                    }
+                    producer.get();
+                    ch.done();
+                    consumer.get();
+
+                    // then
+                    var segments = ch.retainedSegmentCount();
+                    assertEquals(countOccurrences(ch.toString(), "Segment{"), segments);
+                    assertTrue(segments <= 2, "Too many segments retained:\n" + ch);
+                });
+    }
 }
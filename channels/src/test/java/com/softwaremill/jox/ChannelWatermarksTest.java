@@ -0,0 +1,129 @@
+package com.softwaremill.jox;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+public class ChannelWatermarksTest {
+    @Test
+    @Timeout(1)
+    void shouldNotifyWhenCrossingWatermarks() throws InterruptedException {
+        // given
+        Channel<Integer> channel = Channel.newBufferedChannel(10);
+        var events = new CopyOnWriteArrayList<String>();
+        channel.setWatermarks(2, 8, recordingListener(events));
+
+        // when
+        for (int i = 0; i < 8; i++) {
+            channel.send(i);
+        }
+        var afterSends = List.copyOf(events);
+
+        channel.send(8); // still above the high watermark
+        for (int i = 0; i < 6; i++) {
+            channel.receive(); // occupancy: 8 .. 3
+        }
+        var beforeLow = List.copyOf(events);
+        channel.receive(); // occupancy: 2
+
+        // then
+        assertEquals(List.of("high"), afterSends);
+        assertEquals(List.of("high"), beforeLow);
+        assertEquals(List.of("high", "low"), events);
+    }
+
+    @Test
+    @Timeout(1)
+    void shouldNotifyRepeatedlyWithHysteresis() throws InterruptedException {
+        // given
+        Channel<Integer> channel = Channel.newBufferedChannel(4);
+        var events = new CopyOnWriteArrayList<String>();
+        channel.setWatermarks(1, 3, recordingListener(events));
+
+        // when
+        for (int round = 0; round < 3; round++) {
+            channel.send(1);
+            channel.send(2);
+            channel.send(3); // high
+            channel.receive();
+            channel.send(4); // oscillating between 2 and 3 doesn't notify
+            channel.receive();
+            channel.receive(); // low
+            channel.receive();
+        }
+
+        // then
+        assertEquals(List.of("high", "low", "high", "low", "high", "low"), events);
+    }
+
+    @Test
+    @Timeout(1)
+    void shouldComputeWatermarksFromPercentages() throws InterruptedException {
+        // given
+        Channel<Integer> channel = Channel.newBufferedChannel(10);
+        var events = new CopyOnWriteArrayList<String>();
+        channel.setWatermarkPercentages(20, 80, recordingListener(events));
+
+        // when
+        for (int i = 0; i < 7; i++) {
+            channel.send(i);
+        }
+        var before = List.copyOf(events);
+        channel.send(7);
+
+        // then
+        assertEquals(List.of(), before);
+        assertEquals(List.of("high"), events);
+    }
+
+    @Test
+    @Timeout(1)
+    void shouldNotNotifyAfterClearing() throws InterruptedException {
+        // given
+        Channel<Integer> channel = Channel.newBufferedChannel(4);
+        var events = new CopyOnWriteArrayList<String>();
+        channel.setWatermarks(0, 2, recordingListener(events));
+
+        // when
+        channel.clearWatermarks();
+        channel.send(1);
+        channel.send(2);
+
+        // then
+        assertEquals(List.of(), events);
+    }
+
+    @Test
+    void shouldValidateWatermarks() {
+        var channel = Channel.<Integer>newBufferedChannel(4);
+        var listener = recordingListener(new CopyOnWriteArrayList<>());
+        assertThrows(IllegalArgumentException.class, () -> channel.setWatermarks(2, 2, listener));
+        assertThrows(IllegalArgumentException.class, () -> channel.setWatermarks(-1, 2, listener));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> channel.setWatermarkPercentages(50, 120, listener));
+        assertThrows(
+                IllegalStateException.class,
+                () ->
+                        Channel.<Integer>newRendezvousChannel()
+                                .setWatermarkPercentages(20, 80, listener));
+    }
+
+    private static WatermarkListener recordingListener(List<String> events) {
+        return new WatermarkListener() {
+            @Override
+            public void onHighWatermark(Channel<?> channel) {
+                events.add("high");
+            }
+
+            @Override
+            public void onLowWatermark(Channel<?> channel) {
+                events.add("low");
+            }
+        };
+    }
+}
@@ -0,0 +1,213 @@
+package com.softwaremill.jox;
+
+import static com.softwaremill.jox.Select.select;
+import static com.softwaremill.jox.TestUtil.fork;
+import static com.softwaremill.jox.TestUtil.forkCancelable;
+import static com.softwaremill.jox.TestUtil.forkVoid;
+import static com.softwaremill.jox.TestUtil.scoped;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+public class CombiningChannelTest {
+    @Test
+    @Timeout(1)
+    void shouldSendAndReceive() throws InterruptedException {
+        // given
+        var channel = new CombiningChannel<String>(Channel.newBufferedChannel(2));
+
+        // when
+        channel.send("a");
+        channel.send("b");
+
+        // then
+        assertEquals("a", channel.receive());
+        assertEquals("b", channel.receive());
+    }
+
+    @Test
+    @Timeout(10)
+    void shouldDeliverAllValuesPreservingPerSenderOrder()
+            throws InterruptedException, ExecutionException {
+        // given
+        var channel = new CombiningChannel<int[]>(Channel.newBufferedChannel(16));
+        var senders = 32;
+        var perSender = 1000;
+
+        // when
+        scoped(
+                scope -> {
+                    for (int t = 0; t < senders; t++) {
+                        var sender = t;
+                        forkVoid(
+                                scope,
+                                () -> {
+                                    for (int i = 0; i < perSender; i++) {
+                                        channel.send(new int[] {sender, i});
+                                    }
+                                });
+                    }
+
+                    var receivers = new ArrayList<Future<List<int[]>>>();
+                    for (int t = 0; t < 4; t++) {
+                        receivers.add(
+                                fork(
+                                        scope,
+                                        () -> {
+                                            var received = new ArrayList<int[]>();
+                                            for (int i = 0; i < senders * perSender / 4; i++) {
+                                                received.add(channel.receive());
+                                            }
+                                            return received;
+                                        }));
+                    }
+
+                    // then
+                    var total = 0;
+                    for (var r : receivers) {
+                        // within a single receiver, values from each sender must be in order
+                        var lastBySender = new HashMap<Integer, Integer>();
+                        for (var v : r.get()) {
+                            var last = lastBySender.getOrDefault(v[0], -1);
+                            assertTrue(v[1] > last, "out of order: " + v[1] + " after " + last);
+                            lastBySender.put(v[0], v[1]);
+                            total++;
+                        }
+                    }
+                    assertEquals(senders * perSender, total);
+                });
+    }
+
+    @Test
+    @Timeout(5)
+    void shouldDeliverValuesToARendezvousChannel() throws InterruptedException, ExecutionException {
+        // given
+        var channel = new CombiningChannel<Integer>(Channel.newRendezvousChannel());
+
+        // when
+        scoped(
+                scope -> {
+                    for (int t = 0; t < 8; t++) {
+                        forkVoid(
+                                scope,
+                                () -> {
+                                    for (int i = 0; i < 100; i++) {
+                                        channel.send(i);
+                                    }
+                                });
+                    }
+
+                    // then
+                    for (int i = 0; i < 800; i++) {
+                        channel.receive();
+                    }
+                });
+    }
+
+    @Test
+    @Timeout(1)
+    void shouldReturnClosedWhenSendingToAClosedChannel() throws InterruptedException {
+        // given
+        var channel = new CombiningChannel<Integer>(Channel.newBufferedChannel(2));
+        channel.send(1);
+        channel.done();
+
+        // when
+        var r = channel.sendOrClosed(2);
+
+        // then
+        assertInstanceOf(ChannelDone.class, r);
+        assertEquals(1, channel.receive());
+        assertInstanceOf(ChannelDone.class, channel.receiveOrClosed());
+    }
+
+    @Test
+    @Timeout(1)
+    void shouldInterruptABlockedSend() throws InterruptedException, ExecutionException {
+        // given
+        var channel = new CombiningChannel<Integer>(Channel.newBufferedChannel(1));
+        channel.send(1);
+
+        scoped(
+                scope -> {
+                    var f = forkCancelable(scope, () -> channel.send(2));
+                    Thread.sleep(100);
+
+                    // when
+                    var e = f.cancel();
+
+                    // then
+                    assertInstanceOf(InterruptedException.class, e);
+                    assertEquals(1, channel.receive());
+                    channel.send(3); // there's space in the buffer
+                    assertEquals(3, channel.receive());
+                });
+    }
+
+    @Test
+    @Timeout(2)
+    void shouldNotBlockASenderOnValuesOfOtherSenders()
+            throws InterruptedException, ExecutionException {
+        // given
+        var underlying = Channel.<String>newRendezvousChannel();
+        var channel = new CombiningChannel<String>(underlying);
+        var firstResult = new CompletableFuture<Object>();
+        var secondResult = new CompletableFuture<Object>();
+
+        // there's no receiver, so both values are handed back, and the senders block on the
+        // channel directly
+        var first = Thread.ofVirtual().start(() -> sendAndComplete(channel, "a", firstResult));
+        awaitWaiting(first);
+        var second = Thread.ofVirtual().start(() -> sendAndComplete(channel, "b", secondResult));
+        awaitWaiting(second);
+
+        // when
+        assertEquals("a", underlying.receive());
+
+        // then
+        // the first sender completes, without waiting until the second value is received
+        assertNull(firstResult.get());
+        assertFalse(secondResult.isDone());
+        assertEquals("b", underlying.receive());
+        assertNull(secondResult.get());
+    }
+
+    private static void sendAndComplete(
+            CombiningChannel<String> channel, String value, CompletableFuture<Object> result) {
+        try {
+            channel.send(value);
+            result.complete(null);
+        } catch (InterruptedException e) {
+            result.complete(e);
+        }
+    }
+
+    private static void awaitWaiting(Thread t) throws InterruptedException {
+        while (t.getState() != Thread.State.WAITING) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    @Timeout(1)
+    void shouldSelectFromTheUnderlyingChannel() throws InterruptedException {
+        // given
+        var channel1 = new CombiningChannel<String>(Channel.newBufferedChannel(2));
+        var channel2 = Channel.<String>newBufferedChannel(2);
+        channel1.send("x");
+
+        // when
+        var r = select(channel2.receiveClause(), channel1.receiveClause());
+
+        // then
+        assertEquals("x", r);
+    }
+}
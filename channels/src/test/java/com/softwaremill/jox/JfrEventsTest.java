@@ -0,0 +1,130 @@
+package com.softwaremill.jox;
+
+import static com.softwaremill.jox.Select.select;
+import static com.softwaremill.jox.TestUtil.forkVoid;
+import static com.softwaremill.jox.TestUtil.scoped;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class JfrEventsTest {
+    @Test
+    @Timeout(10)
+    void shouldEmitAnEventWhenReceiveWaits()
+            throws InterruptedException, ExecutionException, IOException {
+        // given
+        Channel<String> channel = Channel.newRendezvousChannel();
+
+        // when
+        var events =
+                record(
+                        "jox.ChannelReceive",
+                        () ->
+                                scoped(
+                                        scope -> {
+                                            forkVoid(
+                                                    scope,
+                                                    () -> {
+                                                        Thread.sleep(100);
+                                                        channel.send("x");
+                                                    });
+                                            assertEquals("x", channel.receive());
+                                        }));
+
+        // then
+        var event = events.stream().filter(e -> waitedAtLeast(e, 50)).findFirst().orElseThrow();
+        assertEquals(System.identityHashCode(channel), event.getInt("channelId"));
+        assertEquals(0, event.getInt("capacity"));
+        assertFalse(event.getBoolean("interrupted"));
+    }
+
+    @Test
+    @Timeout(10)
+    void shouldEmitAnEventWhenSelectWaits()
+            throws InterruptedException, ExecutionException, IOException {
+        // given
+        Channel<String> channel1 = Channel.newBufferedChannel(2);
+        Channel<String> channel2 = Channel.newBufferedChannel(2);
+
+        // when
+        var events =
+                record(
+                        "jox.Select",
+                        () ->
+                                scoped(
+                                        scope -> {
+                                            forkVoid(
+                                                    scope,
+                                                    () -> {
+                                                        Thread.sleep(100);
+                                                        channel2.send("x");
+                                                    });
+                                            assertEquals(
+                                                    "x",
+                                                    select(
+                                                            channel1.receiveClause(),
+                                                            channel2.receiveClause()));
+                                        }));
+
+        // then
+        var event = events.stream().filter(e -> waitedAtLeast(e, 50)).findFirst().orElseThrow();
+        assertEquals(2, event.getInt("clauses"));
+    }
+
+    @Test
+    @Timeout(10)
+    void shouldNotEmitAnEventWhenSendDoesNotWait() throws InterruptedException, IOException {
+        // given
+        Channel<String> channel = Channel.newBufferedChannel(2);
+
+        // when
+        var events = record("jox.ChannelSend", () -> channel.send("x"));
+
+        // then
+        assertTrue(
+                events.stream()
+                        .noneMatch(e -> e.getInt("channelId") == System.identityHashCode(channel)));
+    }
+
+    private static boolean waitedAtLeast(RecordedEvent event, long millis) {
+        return event.getDuration().compareTo(Duration.ofMillis(millis)) >= 0;
+    }
+
+    private static List<RecordedEvent> record(String eventName, RecordedBody body)
+            throws InterruptedException, IOException {
+        try (var recording = new Recording()) {
+            recording.enable(eventName).withoutThreshold();
+            recording.start();
+            try {
+                body.run();
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e);
+            }
+            recording.stop();
+
+            var file = Files.createTempFile("jox", ".jfr");
+            try {
+                recording.dump(file);
+                return RecordingFile.readAllEvents(file);
+            } finally {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface RecordedBody {
+        void run() throws InterruptedException, ExecutionException;
+    }
+}
@@ -0,0 +1,121 @@
+package com.softwaremill.jox;
+
+import static com.softwaremill.jox.RecordingJoxMetrics.*;
+import static com.softwaremill.jox.Select.select;
+import static com.softwaremill.jox.TestUtil.forkVoid;
+import static com.softwaremill.jox.TestUtil.scoped;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * Tests the calls of the {@link JoxMetrics} hooks, using {@link RecordingJoxMetrics}. As providers
+ * are discovered once per JVM, and {@code META-INF/services} is ignored for named modules, this is
+ * run in a separate surefire execution, using the class path.
+ */
+public class JoxMetricsRecordingTest {
+    @BeforeEach
+    void reset() {
+        assumeTrue(JoxMetrics.current() instanceof RecordingJoxMetrics);
+        RecordingJoxMetrics.reset();
+    }
+
+    @Test
+    void shouldReportSendsAndReceivesWhichDontSuspend() throws InterruptedException {
+        // given
+        Channel<Integer> channel = Channel.newBufferedChannel(2);
+
+        // when
+        channel.send(1);
+        channel.send(2);
+        channel.receive();
+        channel.receive();
+
+        // then
+        assertEquals(2, sends.get());
+        assertEquals(2, receives.get());
+        assertEquals(0, senderSuspensions.get());
+        assertEquals(0, receiverSuspensions.get());
+        assertEquals(0, spinSuccesses.get() + parks.get());
+    }
+
+    @Test
+    @Timeout(1)
+    void shouldReportSuspensionsAndParks() throws InterruptedException, ExecutionException {
+        // given
+        Channel<Integer> channel = Channel.newRendezvousChannel();
+
+        // when
+        scoped(
+                scope -> {
+                    var f = forkVoid(scope, () -> channel.receive());
+                    Thread.sleep(100);
+                    channel.send(1);
+                    f.get();
+                });
+
+        // then
+        assertEquals(1, sends.get());
+        assertEquals(1, receives.get());
+        assertEquals(0, senderSuspensions.get());
+        assertEquals(1, receiverSuspensions.get());
+        // the receiver is parked by the time the value is sent
+        assertEquals(0, spinSuccesses.get());
+        assertEquals(1, parks.get());
+    }
+
+    @Test
+    @Timeout(1)
+    void shouldInflateTheChannelWhenTheSegmentAllocationHookThrows() throws InterruptedException {
+        // given
+        failOnSegmentAllocated = true;
+        Channel<Integer> channel = Channel.newBufferedChannel(2);
+
+        // when
+        channel.send(1);
+
+        // then
+        assertEquals(1, channel.receive());
+        assertEquals(1, segmentsAllocated.get());
+    }
+
+    @Test
+    void shouldReportSegmentAllocations() throws InterruptedException {
+        // given
+        Channel<Integer> channel = Channel.newUnlimitedChannel();
+
+        // when
+        for (int i = 0; i < Segment.SEGMENT_SIZE * 3; i++) {
+            channel.send(i);
+        }
+
+        // then
+        // the first segment is allocated lazily, on the first send
+        assertEquals(3, segmentsAllocated.get());
+    }
+
+    @Test
+    void shouldReportSelectsAndSendsAndReceivesCompletedImmediatelyWithinSelects()
+            throws InterruptedException {
+        // given
+        Channel<Integer> channel1 = Channel.newBufferedChannel(2);
+        Channel<Integer> channel2 = Channel.newBufferedChannel(2);
+        channel2.send(1);
+
+        // when
+        var r = select(channel1.receiveClause(), channel2.receiveClause());
+        select(channel1.sendClause(2), channel2.sendClause(3));
+
+        // then
+        assertEquals(1, r);
+        assertEquals(2, selects.get());
+        assertEquals(4, selectClauses.get());
+        assertEquals(2, sends.get()); // including the send before the select
+        assertEquals(1, receives.get());
+    }
+}
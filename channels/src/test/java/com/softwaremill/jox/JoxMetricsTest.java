@@ -0,0 +1,34 @@
+package com.softwaremill.jox;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class JoxMetricsTest {
+    @Test
+    void shouldBeDisabledWithoutAnImplementation() {
+        assertFalse(JoxMetrics.isEnabled());
+        assertSame(Metrics.NO_OP, JoxMetrics.current());
+    }
+
+    @Test
+    void shouldUseTheFirstImplementation() {
+        // given
+        var first = new JoxMetrics() {};
+        var second = new JoxMetrics() {};
+
+        // when
+        var loaded = Metrics.load(List.of(first, second).iterator());
+
+        // then
+        assertSame(first, loaded);
+    }
+
+    @Test
+    void shouldUseNoOpWhenNoImplementationIsFound() {
+        assertSame(Metrics.NO_OP, Metrics.load(Collections.emptyIterator()));
+    }
+}
@@ -0,0 +1,87 @@
+package com.softwaremill.jox;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link JoxMetrics} implementation counting the calls of each hook. Registered using {@code
+ * META-INF/services} in the test resources, hence only discovered when the tests are run from the
+ * class path (see {@link JoxMetricsRecordingTest}).
+ */
+public class RecordingJoxMetrics implements JoxMetrics {
+    static final AtomicLong sends = new AtomicLong();
+    static final AtomicLong receives = new AtomicLong();
+    static final AtomicLong senderSuspensions = new AtomicLong();
+    static final AtomicLong receiverSuspensions = new AtomicLong();
+    static final AtomicLong spinSuccesses = new AtomicLong();
+    static final AtomicLong parks = new AtomicLong();
+    static final AtomicLong segmentsAllocated = new AtomicLong();
+    static final AtomicLong segmentsRemoved = new AtomicLong();
+    static final AtomicLong selects = new AtomicLong();
+    static final AtomicLong selectClauses = new AtomicLong();
+
+    /** When {@code true}, {@link #onSegmentAllocated()} throws, after counting the call. */
+    static volatile boolean failOnSegmentAllocated = false;
+
+    static void reset() {
+        failOnSegmentAllocated = false;
+        for (var c :
+                new AtomicLong[] {
+                    sends,
+                    receives,
+                    senderSuspensions,
+                    receiverSuspensions,
+                    spinSuccesses,
+                    parks,
+                    segmentsAllocated,
+                    segmentsRemoved,
+                    selects,
+                    selectClauses
+                }) {
+            c.set(0);
+        }
+    }
+
+    @Override
+    public void onSend(Channel<?> channel) {
+        sends.incrementAndGet();
+    }
+
+    @Override
+    public void onReceive(Channel<?> channel) {
+        receives.incrementAndGet();
+    }
+
+    @Override
+    public void onSuspend(Channel<?> channel, boolean isSender) {
+        (isSender ? senderSuspensions : receiverSuspensions).incrementAndGet();
+    }
+
+    @Override
+    public void onSpinSuccess() {
+        spinSuccesses.incrementAndGet();
+    }
+
+    @Override
+    public void onPark() {
+        parks.incrementAndGet();
+    }
+
+    @Override
+    public void onSegmentAllocated() {
+        segmentsAllocated.incrementAndGet();
+        if (failOnSegmentAllocated) {
+            throw new IllegalStateException("failing on segment allocation");
+        }
+    }
+
+    @Override
+    public void onSegmentRemoved() {
+        segmentsRemoved.incrementAndGet();
+    }
+
+    @Override
+    public void onSelect(int clauses) {
+        selects.incrementAndGet();
+        selectClauses.addAndGet(clauses);
+    }
+}
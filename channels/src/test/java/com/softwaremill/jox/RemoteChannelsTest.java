@@ -0,0 +1,336 @@
+package com.softwaremill.jox;
+
+import static com.softwaremill.jox.TestUtil.forkVoid;
+import static com.softwaremill.jox.TestUtil.scoped;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInputFilter;
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+public class RemoteChannelsTest {
+    @Test
+    @Timeout(5)
+    void shouldTransmitValuesInOrderAndPropagateDone() throws Exception {
+        // given
+        Channel<Integer> channel = Channel.newBufferedChannel(16);
+        try (var server = RemoteChannels.serve(0, channel)) {
+            Sink<Integer> sink = RemoteChannels.connect("localhost", server.port());
+
+            // when
+            scoped(
+                    scope -> {
+                        forkVoid(
+                                scope,
+                                () -> {
+                                    for (int i = 0; i < 1000; i++) {
+                                        sink.send(i);
+                                    }
+                                    sink.done();
+                                });
+
+                        // then
+                        var received = channel.toList();
+                        var expected = new ArrayList<Integer>();
+                        for (int i = 0; i < 1000; i++) {
+                            expected.add(i);
+                        }
+                        assertEquals(expected, received);
+                    });
+        }
+    }
+
+    @Test
+    @Timeout(5)
+    void shouldTransmitValuesToARendezvousChannel() throws Exception {
+        // given
+        Channel<String> channel = Channel.newRendezvousChannel();
+        try (var server = RemoteChannels.serve(0, channel)) {
+            Sink<String> sink = RemoteChannels.connect("localhost", server.port());
+
+            // when
+            sink.send("a");
+            sink.send("b");
+            sink.done();
+
+            // then
+            assertEquals(List.of("a", "b"), channel.toList());
+        }
+    }
+
+    @Test
+    @Timeout(5)
+    void shouldPropagateErrors() throws Exception {
+        // given
+        Channel<String> channel = Channel.newBufferedChannel(4);
+        try (var server = RemoteChannels.serve(0, channel)) {
+            Sink<String> sink = RemoteChannels.connect("localhost", server.port());
+
+            // when
+            sink.send("x");
+            sink.error(new IllegalStateException("boom"));
+
+            // then
+            var r = channel.receiveOrClosed();
+            if (r instanceof ChannelError ce) {
+                assertInstanceOf(IllegalStateException.class, ce.cause());
+                assertEquals("boom", ce.cause().getMessage());
+            } else {
+                // the value might have been discarded, as error closes the channel immediately
+                assertEquals("x", r);
+                var r2 = channel.receiveOrClosed();
+                assertInstanceOf(ChannelError.class, r2);
+                assertEquals("boom", ((ChannelError) r2).cause().getMessage());
+            }
+        }
+    }
+
+    @Test
+    @Timeout(5)
+    void shouldLimitTheNumberOfInFlightValuesToTheServedChannelCapacity()
+            throws ExecutionException, InterruptedException, IOException {
+        // given
+        Channel<Integer> channel = Channel.newBufferedChannel(3);
+        try (var server = RemoteChannels.serve(0, channel)) {
+            Sink<Integer> sink = RemoteChannels.connect("localhost", server.port());
+            var sent = new AtomicInteger();
+
+            // when
+            scoped(
+                    scope -> {
+                        forkVoid(
+                                scope,
+                                () -> {
+                                    for (int i = 0; i < 100; i++) {
+                                        sink.send(i);
+                                        sent.incrementAndGet();
+                                    }
+                                });
+
+                        // then
+                        // 3 values in the served channel, up to 3 in transit (as many as there are
+                        // credits), 1 awaiting credits, 3 in the local buffer; any more would
+                        // overshoot the awaited count
+                        await().atMost(1, SECONDS)
+                                .until(() -> sent.get() == 10 && channel.bufferedCount() == 3);
+
+                        for (int i = 0; i < 100; i++) {
+                            assertEquals(i, channel.receive());
+                        }
+                    });
+        }
+    }
+
+    @Test
+    @Timeout(5)
+    void shouldRejectValuesOfClassesNotAllowedByTheFilter() throws Exception {
+        // given
+        Channel<Point> channel = Channel.newBufferedChannel(4);
+        try (var server = RemoteChannels.serve(0, channel)) {
+            Sink<Point> sink = RemoteChannels.connect("localhost", server.port());
+
+            // when
+            sink.send(new Point(1, 2));
+
+            // then
+            var r = channel.receiveOrClosed();
+            assertInstanceOf(ChannelError.class, r);
+            assertInstanceOf(InvalidClassException.class, ((ChannelError) r).cause());
+        }
+    }
+
+    @Test
+    @Timeout(5)
+    void shouldTransmitValuesOfClassesAllowedByACustomFilter() throws Exception {
+        // given
+        var filter = ObjectInputFilter.Config.createFilter("com.softwaremill.jox.*;java.base/*;!*");
+        Channel<Point> channel = Channel.newBufferedChannel(4);
+        try (var server = RemoteChannels.serve(new InetSocketAddress(0), channel, filter)) {
+            Sink<Point> sink = RemoteChannels.connect("localhost", server.port(), filter);
+
+            // when
+            sink.send(new Point(1, 2));
+            sink.done();
+
+            // then
+            assertEquals(List.of(new Point(1, 2)), channel.toList());
+        }
+    }
+
+    record Point(int x, int y) implements Serializable {}
+
+    @Test
+    @Timeout(5)
+    void shouldRejectDeeplyNestedValues() throws Exception {
+        // given
+        Channel<List<Object>> channel = Channel.newBufferedChannel(4);
+        try (var server = RemoteChannels.serve(0, channel)) {
+            Sink<List<Object>> sink = RemoteChannels.connect("localhost", server.port());
+            List<Object> nested = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                List<Object> outer = new ArrayList<>();
+                outer.add(nested);
+                nested = outer;
+            }
+
+            // when
+            sink.send(nested);
+
+            // then
+            var r = channel.receiveOrClosed();
+            assertInstanceOf(ChannelError.class, r);
+            assertInstanceOf(InvalidClassException.class, ((ChannelError) r).cause());
+        }
+    }
+
+    @Test
+    @Timeout(5)
+    void shouldPropagateDoneOfTheServedChannelToTheSink() throws Exception {
+        // given
+        Channel<Integer> channel = Channel.newBufferedChannel(1);
+        try (var server = RemoteChannels.serve(0, channel)) {
+            Sink<Integer> sink = RemoteChannels.connect("localhost", server.port());
+
+            // when
+            channel.done();
+
+            // then
+            // the first value is transmitted, and the served channel responds that it's closed
+            var result = sink.sendOrClosed(1);
+            while (!(result instanceof ChannelClosed)) {
+                Thread.sleep(10);
+                result = sink.sendOrClosed(1);
+            }
+            assertInstanceOf(ChannelDone.class, result);
+        }
+    }
+
+    @Test
+    @Timeout(5)
+    void shouldCloseTheServedChannelWithAnErrorWhenTheConnectionBreaks() throws Exception {
+        // given
+        Channel<Integer> channel = Channel.newBufferedChannel(1);
+        var server = RemoteChannels.serve(0, channel);
+        RemoteChannels.connect("localhost", server.port());
+
+        // when
+        server.close();
+
+        // then
+        assertInstanceOf(ChannelError.class, channel.receiveOrClosed());
+    }
+
+    @Test
+    @Timeout(5)
+    void shouldReceiveValuesInOrderFromAServedSourceAndPropagateDone() throws Exception {
+        // given
+        Channel<Integer> channel = Channel.newBufferedChannel(16);
+        try (var server = RemoteChannels.serveSource(0, channel)) {
+            Source<Integer> source = RemoteChannels.connectSource("localhost", server.port());
+
+            // when
+            scoped(
+                    scope -> {
+                        forkVoid(
+                                scope,
+                                () -> {
+                                    for (int i = 0; i < 1000; i++) {
+                                        channel.send(i);
+                                    }
+                                    channel.done();
+                                });
+
+                        // then
+                        var received = source.toList();
+                        var expected = new ArrayList<Integer>();
+                        for (int i = 0; i < 1000; i++) {
+                            expected.add(i);
+                        }
+                        assertEquals(expected, received);
+                    });
+        }
+    }
+
+    @Test
+    @Timeout(5)
+    void shouldPropagateErrorsToTheSource() throws Exception {
+        // given
+        Channel<String> channel = Channel.newRendezvousChannel();
+        try (var server = RemoteChannels.serveSource(0, channel)) {
+            Source<String> source = RemoteChannels.connectSource("localhost", server.port());
+
+            // when
+            channel.send("x");
+            channel.error(new IllegalStateException("boom"));
+
+            // then
+            assertEquals("x", source.receive());
+            var r = source.receiveOrClosed();
+            assertInstanceOf(ChannelError.class, r);
+            assertInstanceOf(IllegalStateException.class, ((ChannelError) r).cause());
+            assertEquals("boom", ((ChannelError) r).cause().getMessage());
+        }
+    }
+
+    @Test
+    @Timeout(5)
+    void shouldLimitTheNumberOfInFlightValuesToTheSourceCapacity() throws Exception {
+        // given
+        Channel<Integer> channel = Channel.newBufferedChannel(3);
+        try (var server = RemoteChannels.serveSource(0, channel)) {
+            Source<Integer> source = RemoteChannels.connectSource("localhost", server.port());
+            var sent = new AtomicInteger();
+
+            // when
+            scoped(
+                    scope -> {
+                        forkVoid(
+                                scope,
+                                () -> {
+                                    for (int i = 0; i < 100; i++) {
+                                        channel.send(i);
+                                        sent.incrementAndGet();
+                                    }
+                                });
+
+                        // then
+                        // 3 values in the source, up to 3 in transit (as many as there are
+                        // credits), 1 awaiting credits, 3 in the served channel; any more would
+                        // overshoot the awaited count
+                        await().atMost(1, SECONDS)
+                                .until(() -> sent.get() == 10 && channel.bufferedCount() == 3);
+
+                        for (int i = 0; i < 100; i++) {
+                            assertEquals(i, source.receive());
+                        }
+                    });
+        }
+    }
+
+    @Test
+    @Timeout(5)
+    void shouldCloseTheSourceWithAnErrorWhenTheConnectionBreaks() throws Exception {
+        // given
+        Channel<Integer> channel = Channel.newBufferedChannel(1);
+        var server = RemoteChannels.serveSource(0, channel);
+        Source<Integer> source = RemoteChannels.connectSource("localhost", server.port());
+
+        // when
+        server.close();
+
+        // then
+        assertInstanceOf(ChannelError.class, source.receiveOrClosed());
+        assertInstanceOf(ChannelError.class, channel.receiveOrClosed());
+    }
+}
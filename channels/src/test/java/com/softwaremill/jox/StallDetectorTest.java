@@ -0,0 +1,93 @@
+package com.softwaremill.jox;
+
+import static com.softwaremill.jox.TestUtil.forkCancelable;
+import static com.softwaremill.jox.TestUtil.scoped;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+public class StallDetectorTest {
+    @Test
+    @Timeout(5)
+    void shouldReportABlockedSend() throws InterruptedException, ExecutionException {
+        // given
+        Channel<Integer> channel = Channel.newBufferedChannel(1);
+        channel.setName("stage-1");
+        channel.send(1);
+        var stalls = new LinkedBlockingQueue<StallDetector.Stall>();
+
+        try (var detector = StallDetector.start(Duration.ofMillis(100), stalls::add)) {
+            scoped(
+                    scope -> {
+                        // when
+                        var f = forkCancelable(scope, () -> channel.send(2));
+
+                        // then
+                        var stall = stalls.poll(2, TimeUnit.SECONDS);
+                        assertNotNull(stall);
+                        assertEquals("stage-1", stall.channelName());
+                        assertTrue(stall.isSender());
+                        assertTrue(stall.blockedFor().compareTo(Duration.ofMillis(100)) >= 0);
+                        assertTrue(
+                                Arrays.stream(stall.stackTrace())
+                                        .anyMatch(e -> e.getMethodName().equals("send")));
+
+                        f.cancel();
+                    });
+        }
+    }
+
+    @Test
+    @Timeout(5)
+    void shouldNotReportOperationsResumedBeforeTheThreshold()
+            throws InterruptedException, ExecutionException {
+        // given
+        Channel<Integer> channel = Channel.newRendezvousChannel();
+        var stalls = new LinkedBlockingQueue<StallDetector.Stall>();
+
+        try (var detector = StallDetector.start(Duration.ofMillis(500), stalls::add)) {
+            scoped(
+                    scope -> {
+                        // when
+                        var f =
+                                forkCancelable(
+                                        scope,
+                                        () -> {
+                                            channel.receive();
+                                        });
+                        Thread.sleep(50);
+                        channel.send(1);
+                        f.cancel();
+
+                        // then
+                        assertNull(stalls.poll(1, TimeUnit.SECONDS));
+                    });
+        }
+    }
+
+    @Test
+    void shouldAllowOnlyOneRunningDetector() throws InterruptedException {
+        try (var detector = StallDetector.start(Duration.ofSeconds(1), s -> {})) {
+            assertThrows(
+                    IllegalStateException.class,
+                    () -> StallDetector.start(Duration.ofSeconds(1), s -> {}));
+        }
+
+        // after closing, a new detector can be started
+        StallDetector.start(Duration.ofSeconds(1), s -> {}).close();
+    }
+
+    @Test
+    void shouldUseTheIdentityHashCodeWhenNoNameIsSet() {
+        var channel = Channel.newRendezvousChannel();
+        assertEquals(
+                "Channel@" + Integer.toHexString(System.identityHashCode(channel)), channel.name());
+    }
+}
@@ -0,0 +1,165 @@
+package com.softwaremill.jox;
+
+import static com.softwaremill.jox.TestUtil.forkCancelable;
+import static com.softwaremill.jox.TestUtil.scoped;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ExecutionException;
+
+import javax.management.Attribute;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+public class WaitForGraphTest {
+    @AfterEach
+    void disableTracking() {
+        WaitForGraph.setTracking(false);
+    }
+
+    @Test
+    @Timeout(5)
+    void shouldListParkedSendersAndReceivers() throws InterruptedException, ExecutionException {
+        // given
+        WaitForGraph.setTracking(true);
+        Channel<Integer> full = Channel.newBufferedChannel(1);
+        full.setName("full");
+        full.send(1);
+        Channel<Integer> empty = Channel.newRendezvousChannel();
+        empty.setName("empty");
+
+        scoped(
+                scope -> {
+                    var sender =
+                            forkCancelable(
+                                    scope,
+                                    () -> {
+                                        WaitForGraph.setCurrentOwner("stage-1");
+                                        full.send(2);
+                                    });
+                    var receiver =
+                            forkCancelable(
+                                    scope,
+                                    () -> {
+                                        empty.receive();
+                                    });
+                    Thread.sleep(100);
+
+                    // when
+                    var graph = WaitForGraph.snapshot();
+
+                    // then
+                    assertEquals(2, graph.size());
+
+                    var emptyNode = graph.get(0);
+                    assertEquals("empty", emptyNode.channelName());
+                    assertEquals(0, emptyNode.buffered());
+                    assertEquals(0, emptyNode.waitingSenders().size());
+                    assertEquals(1, emptyNode.waitingReceivers().size());
+
+                    var fullNode = graph.get(1);
+                    assertEquals("full", fullNode.channelName());
+                    assertEquals(1, fullNode.capacity());
+                    assertEquals(1, fullNode.buffered());
+                    assertEquals(1, fullNode.waitingSenders().size());
+                    assertEquals("stage-1", fullNode.waitingSenders().getFirst().owner());
+                    assertEquals(0, fullNode.waitingReceivers().size());
+
+                    assertTrue(WaitForGraph.dump().contains("owned by stage-1"));
+
+                    sender.cancel();
+                    receiver.cancel();
+                    assertEquals(0, WaitForGraph.snapshot().size());
+                });
+    }
+
+    @Test
+    @Timeout(5)
+    void shouldListParkedSelectsOnEachChannel() throws InterruptedException, ExecutionException {
+        // given
+        WaitForGraph.setTracking(true);
+        Channel<Integer> input = Channel.newRendezvousChannel();
+        input.setName("input");
+        Channel<Integer> output = Channel.newRendezvousChannel();
+        output.setName("output");
+
+        scoped(
+                scope -> {
+                    var selecting =
+                            forkCancelable(
+                                    scope,
+                                    () -> {
+                                        WaitForGraph.setCurrentOwner("merge");
+                                        Select.select(input.receiveClause(), output.sendClause(1));
+                                    });
+                    Thread.sleep(100);
+
+                    // when
+                    var graph = WaitForGraph.snapshot();
+
+                    // then
+                    assertEquals(2, graph.size());
+
+                    var inputNode = graph.get(0);
+                    assertEquals("input", inputNode.channelName());
+                    assertEquals(0, inputNode.waitingSenders().size());
+                    assertEquals(1, inputNode.waitingReceivers().size());
+                    assertEquals("merge", inputNode.waitingReceivers().getFirst().owner());
+
+                    var outputNode = graph.get(1);
+                    assertEquals("output", outputNode.channelName());
+                    assertEquals(1, outputNode.waitingSenders().size());
+                    assertEquals(0, outputNode.waitingReceivers().size());
+
+                    // when the select completes, it's no longer listed
+                    assertEquals(1, output.receive());
+                    selecting.get();
+                    assertEquals(0, WaitForGraph.snapshot().size());
+                });
+    }
+
+    @Test
+    @Timeout(5)
+    void shouldNotTrackWhenDisabled() throws InterruptedException, ExecutionException {
+        // given
+        Channel<Integer> channel = Channel.newRendezvousChannel();
+
+        scoped(
+                scope -> {
+                    var receiver =
+                            forkCancelable(
+                                    scope,
+                                    () -> {
+                                        channel.receive();
+                                    });
+                    Thread.sleep(100);
+
+                    // when
+                    var graph = WaitForGraph.snapshot();
+
+                    // then
+                    assertEquals(0, graph.size());
+                    receiver.cancel();
+                });
+    }
+
+    @Test
+    void shouldExposeTheGraphThroughJmx() throws Exception {
+        // given
+        WaitForGraph.registerMBean();
+        var server = ManagementFactory.getPlatformMBeanServer();
+        var name = new ObjectName(WaitForGraph.MBEAN_NAME);
+
+        // when
+        server.setAttribute(name, new Attribute("Tracking", true));
+
+        // then
+        assertTrue(WaitForGraph.isTracking());
+        assertTrue(
+                ((String) server.getAttribute(name, "WaitForGraph"))
+                        .contains("Channels with parked operations: 0"));
+    }
+}
@@ -818,6 +818,24 @@ public class Flow<T> {
                 });
     }
 
+    /**
+     * Reports each element emitted by this flow to {@link JoxMetrics#onFlowElement(String)}, using
+     * the given stage name. The returned flow emits the elements unchanged.
+     *
+     * <p>Stages aren't instrumented automatically: only elements passing through the points marked
+     * using this method are reported.
+     *
+     * <p>If no {@link JoxMetrics} implementation is available, returns this flow.
+     */
+    public Flow<T> metered(String stage) {
+        if (!JoxMetrics.isEnabled()) {
+            return this;
+        }
+
+        var metrics = JoxMetrics.current();
+        return tap(t -> metrics.onFlowElement(stage));
+    }
+
     /**
      * Applies the given `mappingFunction` to each element emitted by this flow, obtaining a nested
      * flow to run. The elements emitted by the nested flow are then emitted by the returned flow.
@@ -1598,6 +1616,40 @@ public class Flow<T> {
                 });
     }
 
+    /**
+     * Applies the given mapping function `f` to each element emitted by this flow. The number of
+     * invocations of `f` run in parallel is bounded by the given adaptive `limiter`, which adjusts
+     * the limit based on the observed latencies and failures of `f`.
+     *
+     * <p>Otherwise, behaves as {@link #mapPar(int, ThrowingFunction)}: the mapped results are
+     * emitted in the same order, in which inputs are received.
+     *
+     * @param limiter The limiter, which should be shared by all flows calling the same dependency.
+     *     At most {@link AdaptiveLimiter#maxLimit()} forks are created at the same time.
+     * @param f The mapping function.
+     */
+    public <U> Flow<U> mapPar(AdaptiveLimiter limiter, ThrowingFunction<T, U> f) {
+        return mapPar(limiter.maxLimit(), t -> limiter.run(() -> f.apply(t)));
+    }
+
+    /**
+     * Applies the given CPU-bound mapping function `f` to each element emitted by this flow, using
+     * the {@link Compute} pool of platform threads. At most `parallelism` invocations of `f` are
+     * run in parallel; the pool's size is a further bound on the number of invocations that
+     * actually run at the same time.
+     *
+     * <p>Otherwise, behaves as {@link #mapPar(int, ThrowingFunction)}: the mapped results are
+     * emitted in the same order, in which inputs are received.
+     *
+     * @param parallelism An upper bound on the number of forks that run in parallel. Each fork runs
+     *     the function `f` on a single element from the flow, on the compute pool.
+     * @param f The mapping function.
+     * @see Scope#forkCompute(Callable)
+     */
+    public <U> Flow<U> mapParCompute(int parallelism, ThrowingFunction<T, U> f) {
+        return mapPar(parallelism, t -> Compute.compute(() -> f.apply(t)));
+    }
+
     /**
      * Applies the given mapping function `f` to each element emitted by this flow. At most
      * `parallelism` invocations of `f` are run in parallel.
@@ -268,6 +268,53 @@ public class FlowMapTest {
                 });
     }
 
+    @Test
+    void mapParCompute_shouldMapOnComputeThreadsPreservingOrder() throws Exception {
+        // given
+        Flow<Integer> flow = Flows.iterate(1, v -> v + 1).take(100);
+        Queue<String> threads = new ConcurrentLinkedQueue<>();
+
+        // when
+        List<Integer> result =
+                flow.mapParCompute(
+                                4,
+                                (Integer i) -> {
+                                    threads.add(Thread.currentThread().getName());
+                                    return i * 2;
+                                })
+                        .runToList();
+
+        // then
+        assertEquals(Flows.iterate(2, v -> v + 2).take(100).runToList(), result);
+        assertThat(threads, everyItem(startsWith("jox-compute-")));
+    }
+
+    @Test
+    void mapParCompute_shouldPropagateErrors() {
+        // given
+        Flow<Integer> flow = Flows.iterate(1, v -> v + 1).take(10);
+        RuntimeException boom = new RuntimeException("boom");
+
+        // when
+        Flow<Integer> s2 =
+                flow.mapParCompute(
+                        3,
+                        (Integer i) -> {
+                            if (i > 4) {
+                                throw boom;
+                            }
+                            return i * 2;
+                        });
+
+        // then
+        try {
+            s2.runToList();
+            Assertions.fail("should have thrown");
+        } catch (Exception e) {
+            assertEquals(boom, e.getCause().getCause());
+        }
+    }
+
     @Test
     void mapPar_shouldPropagateErrors() {
         // given
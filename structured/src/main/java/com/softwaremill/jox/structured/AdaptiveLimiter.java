@@ -0,0 +1,209 @@
+package com.softwaremill.jox.structured;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the number of computations run concurrently, adjusting the limit based on the observed
+ * latencies and failures of the computations. This way, throughput is maximized, without
+ * overloading the dependencies, and without having to hand-tune the parallelism.
+ *
+ * <p>Two algorithms are available:
+ *
+ * <ul>
+ *   <li>{@link #aimd}: additive increase, multiplicative decrease. The limit is increased by 1
+ *       after a successful computation (if the limit is being used), and decreased by a ratio after
+ *       a failure, or when the latency exceeds a threshold.
+ *   <li>{@link #gradient}: the limit is scaled by the ratio of the lowest observed latency, to the
+ *       (smoothed) current latency, with some headroom added, so that the limit grows while latency
+ *       stays low, and shrinks once requests start queueing.
+ * </ul>
+ *
+ * <p>A limiter should be shared by all computations calling the same dependency. It can be used
+ * directly using {@link #run(Callable)}, or through {@link Par#parLimit(AdaptiveLimiter,
+ * java.util.List)}.
+ */
+public final class AdaptiveLimiter {
+    private final int minLimit;
+    private final int maxLimit;
+    private final Algorithm algorithm;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitReleased = lock.newCondition();
+    // guarded by lock
+    private double limit;
+    private int inFlight = 0;
+
+    private AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, Algorithm algorithm) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Limits must satisfy: 1 <= minLimit <= maxLimit");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.algorithm = algorithm;
+        this.limit = clamp(initialLimit);
+    }
+
+    /**
+     * Creates a limiter using the AIMD (additive increase, multiplicative decrease) algorithm.
+     *
+     * @param latencyThreshold Computations which take longer than this are treated as failures,
+     *     decreasing the limit.
+     * @param backoffRatio The ratio, by which the limit is multiplied on failure; between 0 and 1.
+     */
+    public static AdaptiveLimiter aimd(
+            int initialLimit,
+            int minLimit,
+            int maxLimit,
+            Duration latencyThreshold,
+            double backoffRatio) {
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("backoffRatio must be between 0 and 1");
+        }
+        return new AdaptiveLimiter(
+                initialLimit,
+                minLimit,
+                maxLimit,
+                new Aimd(latencyThreshold.toNanos(), backoffRatio));
+    }
+
+    /** Creates a limiter using the gradient algorithm. */
+    public static AdaptiveLimiter gradient(int initialLimit, int minLimit, int maxLimit) {
+        return new AdaptiveLimiter(initialLimit, minLimit, maxLimit, new Gradient());
+    }
+
+    /**
+     * Runs {@code f} once the number of computations running using this limiter is below the
+     * current limit, blocking until then. The latency and outcome of {@code f} are used to adjust
+     * the limit. If {@code f} is interrupted (e.g. because its scope ends), the limit isn't
+     * changed, as a cancelled computation says nothing about the dependency.
+     */
+    public <T> T run(Callable<T> f) throws Exception {
+        acquire();
+        var start = System.nanoTime();
+        var outcome = Outcome.FAILED;
+        try {
+            T r = f.call();
+            outcome = Outcome.SUCCEEDED;
+            return r;
+        } catch (InterruptedException e) {
+            outcome = Outcome.CANCELLED;
+            throw e;
+        } finally {
+            release(System.nanoTime() - start, outcome);
+        }
+    }
+
+    /**
+     * @return The current limit of concurrently running computations.
+     */
+    public int limit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The upper bound of the limit.
+     */
+    public int maxLimit() {
+        return maxLimit;
+    }
+
+    private void acquire() throws InterruptedException {
+        lock.lock();
+        try {
+            while (inFlight >= (int) limit) {
+                permitReleased.await();
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(long latencyNanos, Outcome outcome) {
+        lock.lock();
+        try {
+            var oldLimit = (int) limit;
+            if (outcome != Outcome.CANCELLED) {
+                limit =
+                        clamp(
+                                algorithm.update(
+                                        limit, inFlight, latencyNanos, outcome == Outcome.FAILED));
+            }
+            inFlight--;
+            if ((int) limit > oldLimit) {
+                permitReleased.signalAll();
+            } else {
+                permitReleased.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double clamp(double l) {
+        return Math.max(minLimit, Math.min(maxLimit, l));
+    }
+
+    private enum Outcome {
+        SUCCEEDED,
+        FAILED,
+        CANCELLED
+    }
+
+    private interface Algorithm {
+        /** Called when holding the limiter's lock. */
+        double update(double limit, int inFlight, long latencyNanos, boolean failed);
+    }
+
+    private record Aimd(long latencyThresholdNanos, double backoffRatio) implements Algorithm {
+        @Override
+        public double update(double limit, int inFlight, long latencyNanos, boolean failed) {
+            if (failed || latencyNanos > latencyThresholdNanos) {
+                return limit * backoffRatio;
+            } else if (inFlight * 2 >= limit) {
+                // only increasing the limit, if it's actually being used
+                return limit + 1;
+            } else {
+                return limit;
+            }
+        }
+    }
+
+    private static final class Gradient implements Algorithm {
+        private static final double SMOOTHING = 0.2;
+        private static final double MIN_GRADIENT = 0.5;
+
+        private long minLatencyNanos = Long.MAX_VALUE;
+        private double smoothedLatencyNanos = 0;
+
+        @Override
+        public double update(double limit, int inFlight, long latencyNanos, boolean failed) {
+            if (failed) {
+                return limit * MIN_GRADIENT;
+            }
+
+            minLatencyNanos = Math.min(minLatencyNanos, Math.max(1, latencyNanos));
+            smoothedLatencyNanos =
+                    smoothedLatencyNanos == 0
+                            ? latencyNanos
+                            : smoothedLatencyNanos * (1 - SMOOTHING) + latencyNanos * SMOOTHING;
+
+            var gradient =
+                    Math.max(
+                            MIN_GRADIENT,
+                            Math.min(1.0, minLatencyNanos / Math.max(1, smoothedLatencyNanos)));
+            // the headroom allows the limit to grow, while the latency doesn't increase; but only
+            // if the limit is actually being used
+            var headroom = inFlight * 2 >= limit ? Math.sqrt(limit) : 0;
+            return limit * gradient + headroom * gradient * gradient;
+        }
+    }
+}
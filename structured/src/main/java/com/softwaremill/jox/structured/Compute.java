@@ -0,0 +1,132 @@
+package com.softwaremill.jox.structured;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs CPU-bound computations on a dedicated, bounded pool of platform threads, so that they don't
+ * monopolize the carrier threads of virtual threads, starving I/O-bound forks.
+ *
+ * <p>The pool is shared by the whole JVM, and has as many threads as there are available
+ * processors. The calling (usually virtual) thread blocks until the computation completes.
+ *
+ * @see Scope#forkCompute(Callable)
+ */
+public final class Compute {
+    private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+    private Compute() {}
+
+    /**
+     * @return The number of threads in the compute pool.
+     */
+    public static int parallelism() {
+        return PARALLELISM;
+    }
+
+    /**
+     * Runs {@code f} on the compute pool, and blocks until it completes, returning its result or
+     * re-throwing its exception.
+     *
+     * <p>If the calling thread is interrupted while waiting, the computation is cancelled. If it
+     * hasn't yet started, it's marked as cancelled, and this method returns immediately; the task
+     * stays in the pool's queue, and is skipped (without running the computation) once a pool
+     * thread dequeues it. Otherwise, the thread running it is interrupted, and this method only
+     * returns (throwing the {@link InterruptedException}) once the computation completes, so that
+     * it never outlives the fork that started it.
+     */
+    public static <T> T compute(Callable<T> f) throws Exception {
+        var task = new ComputeTask<>(f);
+        Pool.INSTANCE.execute(task);
+        try {
+            return task.result.get();
+        } catch (ExecutionException e) {
+            throw SneakyThrows.sneakyThrow(e.getCause());
+        } catch (InterruptedException e) {
+            if (!task.cancel()) {
+                // CompletableFuture.join is not interruptible
+                task.result.handle((r, t) -> null).join();
+            }
+            throw e;
+        }
+    }
+
+    private static final class Pool {
+        // bounded: when a computation blocks, no compensating threads are created
+        static final ForkJoinPool INSTANCE =
+                new ForkJoinPool(
+                        PARALLELISM,
+                        pool -> {
+                            var t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                            t.setName("jox-compute-" + t.getPoolIndex());
+                            return t;
+                        },
+                        null,
+                        false,
+                        0,
+                        PARALLELISM,
+                        1,
+                        pool -> true,
+                        60,
+                        TimeUnit.SECONDS);
+    }
+
+    private static final class ComputeTask<T> implements Runnable {
+        private static final int NEW = 0;
+        private static final int RUNNING = 1;
+        private static final int DONE = 2;
+
+        private final Callable<T> f;
+        final CompletableFuture<T> result = new CompletableFuture<>();
+
+        // guarded by this
+        private int state = NEW;
+        private Thread runner;
+
+        ComputeTask(Callable<T> f) {
+            this.f = f;
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (state != NEW) {
+                    return; // cancelled before it started
+                }
+                state = RUNNING;
+                runner = Thread.currentThread();
+            }
+
+            try {
+                result.complete(f.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                synchronized (this) {
+                    state = DONE;
+                    runner = null;
+                }
+                // an interrupt meant for this computation mustn't leak to the next one, run by
+                // the same worker; no new interrupts can arrive, as the state is now DONE
+                Thread.interrupted();
+            }
+        }
+
+        /**
+         * @return {@code true}, if the computation has been cancelled before it started; {@code
+         *     false}, if it's running (and has been interrupted), or is already done.
+         */
+        synchronized boolean cancel() {
+            if (state == NEW) {
+                state = DONE;
+                return true;
+            } else if (state == RUNNING) {
+                runner.interrupt();
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.softwaremill.jox.structured;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A batch of forks started using {@link Scope#forkAll}, each backed by a (virtual) thread. The
+ * results of all forks are tracked together, instead of using a separate {@link Fork} for each.
+ */
+@FunctionalInterface
+public interface Forks<T> {
+    /**
+     * Blocks until all forks complete with a result.
+     *
+     * @return The results of the forks, in the order in which the computations were given. The
+     *     returned list is fixed-size.
+     */
+    List<T> joinAll() throws InterruptedException, ExecutionException;
+}
+
+class ForksUsingResults<T> implements Forks<T> {
+    private final Object[] results;
+    private final AtomicInteger remaining;
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+    ForksUsingResults(int size) {
+        this.results = new Object[size];
+        this.remaining = new AtomicInteger(size);
+        if (size == 0) {
+            done.complete(null);
+        }
+    }
+
+    void complete(int index, T value) {
+        // the write is visible to joinAll, as it happens-before completing the future
+        results[index] = value;
+        if (remaining.decrementAndGet() == 0) {
+            done.complete(null);
+        }
+    }
+
+    void completeExceptionally(Throwable e) {
+        done.completeExceptionally(e);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public List<T> joinAll() throws InterruptedException, ExecutionException {
+        done.get();
+        return (List<T>) Arrays.asList(results);
+    }
+}
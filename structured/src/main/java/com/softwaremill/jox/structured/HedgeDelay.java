@@ -0,0 +1,108 @@
+package com.softwaremill.jox.structured;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Determines how long {@link Race#hedged(HedgeDelay, int, java.util.concurrent.Callable)} waits for
+ * an attempt to complete, before starting another one.
+ *
+ * <p>A fixed delay can be created using {@link #fixed(Duration)}. An adaptive one, based on the
+ * latencies observed in previous calls, using {@link #percentile(double, Duration, int)}; such an
+ * instance should be shared by all calls to the same backend.
+ */
+public interface HedgeDelay {
+    /**
+     * @return The delay, in nanoseconds, after which the next attempt is started.
+     */
+    long delayNanos();
+
+    /**
+     * Called with the latency of each successful call, measured from the start of its first
+     * attempt, until the first successful result.
+     */
+    default void onSuccess(long latencyNanos) {}
+
+    /** A delay, which is always the same. */
+    static HedgeDelay fixed(Duration delay) {
+        var nanos = delay.toNanos();
+        return () -> nanos;
+    }
+
+    /**
+     * A delay equal to the given percentile of the latencies of the last {@code window} successful
+     * calls. E.g. with a percentile of {@code 0.95}, a hedged attempt is started only for the 5%
+     * slowest calls.
+     *
+     * <p>To keep {@link #delayNanos()} cheap, the percentile isn't recomputed after each call, but
+     * once {@code window / 16} (at least 1) new latencies are observed.
+     *
+     * @param percentile The percentile, between 0 and 1.
+     * @param initialDelay The delay used until {@code window} latencies are observed.
+     * @param window The number of most recent latencies, from which the percentile is computed.
+     */
+    static HedgeDelay percentile(double percentile, Duration initialDelay, int window) {
+        return new PercentileHedgeDelay(percentile, initialDelay.toNanos(), window);
+    }
+}
+
+final class PercentileHedgeDelay implements HedgeDelay {
+    /** The percentile is recomputed once 1/16 of the window is replaced. */
+    private static final int REFRESH_FRACTION = 16;
+
+    private final double percentile;
+    private final long initialDelayNanos;
+    private final int refreshInterval;
+
+    // guarded by this
+    private final long[] latencies;
+    private final long[] sorted;
+    private int next = 0;
+    private boolean full = false;
+    private int samplesSinceRefresh = 0;
+    private long cachedDelayNanos;
+    private boolean cacheValid = false;
+
+    PercentileHedgeDelay(double percentile, long initialDelayNanos, int window) {
+        if (percentile < 0 || percentile > 1) {
+            throw new IllegalArgumentException("percentile must be between 0 and 1");
+        }
+        if (window < 1) {
+            throw new IllegalArgumentException("window must be positive");
+        }
+        this.percentile = percentile;
+        this.initialDelayNanos = initialDelayNanos;
+        this.refreshInterval = Math.max(1, window / REFRESH_FRACTION);
+        this.latencies = new long[window];
+        this.sorted = new long[window];
+    }
+
+    @Override
+    public synchronized long delayNanos() {
+        if (!full) {
+            return initialDelayNanos;
+        }
+        if (!cacheValid) {
+            System.arraycopy(latencies, 0, sorted, 0, latencies.length);
+            Arrays.sort(sorted);
+            var index = (int) Math.ceil(percentile * sorted.length) - 1;
+            cachedDelayNanos = sorted[Math.max(0, index)];
+            cacheValid = true;
+            samplesSinceRefresh = 0;
+        }
+        return cachedDelayNanos;
+    }
+
+    @Override
+    public synchronized void onSuccess(long latencyNanos) {
+        latencies[next] = latencyNanos;
+        next = (next + 1) % latencies.length;
+        if (next == 0) {
+            full = true;
+        }
+        // recomputing only every few latencies, so that the window isn't sorted on each call
+        if (++samplesSinceRefresh >= refreshInterval) {
+            cacheValid = false;
+        }
+    }
+}
@@ -3,26 +3,27 @@ package com.softwaremill.jox.structured;
 import static com.softwaremill.jox.structured.Scopes.supervised;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Semaphore;
 
+import com.softwaremill.jox.Channel;
+import com.softwaremill.jox.Source;
+
 public class Par {
     /**
      * Runs the given computations in parallel. If any fails because of an exception, or if any
      * returns an application error, other computations are interrupted. Then, the exception is
      * re-thrown, or the error value returned.
+     *
+     * @return The results of the computations, in the order in which they were given, as a mutable
+     *     list.
      */
     public static <T> List<T> par(List<Callable<T>> fs) throws InterruptedException {
-        return supervised(
-                scope -> {
-                    var forks = new ArrayList<>(fs.size());
-                    for (Callable<T> f : fs) {
-                        forks.add(scope.fork(f));
-                    }
-                    return collect(forks);
-                });
+        // joinAll returns a fixed-size list
+        return supervised(scope -> new ArrayList<>(scope.forkAll(fs).joinAll()));
     }
 
     /**
@@ -71,4 +72,219 @@ public class Par {
                     return collect(forks);
                 });
     }
+
+    /**
+     * Runs the given computations in parallel, with the number of computations running at the same
+     * time bounded by the given adaptive {@code limiter}. If any computation fails because of an
+     * exception, other computations are interrupted. Then, the exception is re-thrown.
+     *
+     * <p>The limiter should be shared by all calls to the same dependency, so that the limit adapts
+     * to its capacity over time.
+     */
+    public static <T> List<T> parLimit(AdaptiveLimiter limiter, List<Callable<T>> fs)
+            throws InterruptedException {
+        return supervised(
+                scope -> {
+                    var forks = new ArrayList<>(fs.size());
+                    for (Callable<T> f : fs) {
+                        forks.add(scope.fork(() -> limiter.run(f)));
+                    }
+                    return collect(forks);
+                });
+    }
+
+    /**
+     * Runs the given computations in parallel, with at most {@code parallelism} running at the same
+     * time, and returns a {@link Source} of their results, in completion order. Hence, results can
+     * be processed as soon as they are available, without waiting for all computations to complete.
+     *
+     * <p>The computations are run in a fork of the given scope. A computation's result has to be
+     * received from the source, before the next computation can be started in its place (up to
+     * {@code parallelism} results are buffered), so the number of in-flight results is bounded.
+     *
+     * <p>Once all computations complete, the source is done. If any computation fails, other
+     * computations are interrupted, and the source is closed with the exception as the error.
+     * Similarly, if the scope ends, any running computations are interrupted; the interruption
+     * isn't reported as an error of the source.
+     *
+     * @throws IllegalArgumentException If {@code parallelism} is less than 1.
+     */
+    public static <T> Source<T> parStream(Scope scope, int parallelism, List<Callable<T>> fs)
+            throws InterruptedException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        Channel<T> results = Channel.newBufferedChannel(parallelism);
+        scope.fork(
+                () -> {
+                    try {
+                        supervised(
+                                inner -> {
+                                    var s = new Semaphore(parallelism);
+                                    for (Callable<T> f : fs) {
+                                        s.acquire();
+                                        inner.forkUser(
+                                                () -> {
+                                                    results.send(f.call());
+                                                    // no try-finally, as in parLimit
+                                                    s.release();
+                                                    return null;
+                                                });
+                                    }
+                                    return null;
+                                });
+                        results.done();
+                    } catch (InterruptedException e) {
+                        // the scope is ending, this is a cancellation rather than a failure
+                        throw e;
+                    } catch (JoxScopeExecutionException e) {
+                        results.errorOrClosed(e.getCause());
+                    } catch (Throwable e) {
+                        results.errorOrClosed(e);
+                    }
+                    return null;
+                });
+        return results;
+    }
+
+    /**
+     * The number of chunks per available processor, into which lists are split by {@link #parMap},
+     * {@link #parForEach} and {@link #parReduce}. More chunks than processors balance the load,
+     * when processing some elements takes longer than others.
+     */
+    private static final int CHUNKS_PER_PROCESSOR = 4;
+
+    /**
+     * Applies {@code f} to each element of {@code list} in parallel, returning the results in the
+     * same order. The list is recursively split into chunks, sized to the available parallelism;
+     * the elements of each chunk are processed sequentially, in a single fork. Hence, unlike {@link
+     * #par}, a fork isn't created for each element, making this suitable for large lists and cheap
+     * functions.
+     *
+     * <p>If {@code f} throws an exception for any element, other chunks are interrupted, and the
+     * exception is re-thrown (wrapped in a {@link JoxScopeExecutionException}).
+     *
+     * @return The results, in the order of the elements of {@code list}, as a mutable list.
+     */
+    public static <T, U> List<U> parMap(List<T> list, ThrowingFunction<T, U> f)
+            throws InterruptedException {
+        var elements = list.toArray();
+        var results = new Object[elements.length];
+        supervised(
+                scope ->
+                        splitAndRun(
+                                scope,
+                                0,
+                                elements.length,
+                                chunkSize(elements.length),
+                                (from, to) -> {
+                                    for (int i = from; i < to; i++) {
+                                        //noinspection unchecked
+                                        results[i] = f.apply((T) elements[i]);
+                                    }
+                                    return null;
+                                },
+                                (r1, r2) -> null));
+        //noinspection unchecked
+        return new ArrayList<>((List<U>) Arrays.asList(results));
+    }
+
+    /**
+     * Runs {@code f} for each element of {@code list} in parallel. The list is split into chunks,
+     * as in {@link #parMap}.
+     *
+     * <p>If {@code f} throws an exception for any element, other chunks are interrupted, and the
+     * exception is re-thrown (wrapped in a {@link JoxScopeExecutionException}).
+     */
+    public static <T> void parForEach(List<T> list, ThrowingConsumer<T> f)
+            throws InterruptedException {
+        var elements = list.toArray();
+        supervised(
+                scope ->
+                        splitAndRun(
+                                scope,
+                                0,
+                                elements.length,
+                                chunkSize(elements.length),
+                                (from, to) -> {
+                                    for (int i = from; i < to; i++) {
+                                        //noinspection unchecked
+                                        f.accept((T) elements[i]);
+                                    }
+                                    return null;
+                                },
+                                (r1, r2) -> null));
+    }
+
+    /**
+     * Reduces the elements of {@code list} in parallel. The list is split into chunks, as in {@link
+     * #parMap}. The elements of each chunk are accumulated sequentially using {@code op}, starting
+     * with {@code identity}; then, the partial results of the chunks are combined using {@code
+     * combiner}, preserving the order of the chunks.
+     *
+     * <p>As with {@link java.util.stream.Stream#reduce(Object, java.util.function.BiFunction,
+     * java.util.function.BinaryOperator)}, {@code identity} must be an identity for {@code
+     * combiner}, and {@code op} and {@code combiner} must be associative and compatible.
+     *
+     * <p>If {@code op} or {@code combiner} throws an exception, other chunks are interrupted, and
+     * the exception is re-thrown (wrapped in a {@link JoxScopeExecutionException}).
+     */
+    public static <T, U> U parReduce(
+            List<T> list,
+            U identity,
+            ThrowingBiFunction<U, T, U> op,
+            ThrowingBiFunction<U, U, U> combiner)
+            throws InterruptedException {
+        var elements = list.toArray();
+        return supervised(
+                scope ->
+                        splitAndRun(
+                                scope,
+                                0,
+                                elements.length,
+                                chunkSize(elements.length),
+                                (from, to) -> {
+                                    var acc = identity;
+                                    for (int i = from; i < to; i++) {
+                                        //noinspection unchecked
+                                        acc = op.apply(acc, (T) elements[i]);
+                                    }
+                                    return acc;
+                                },
+                                combiner));
+    }
+
+    private static int chunkSize(int size) {
+        var chunks = Compute.parallelism() * CHUNKS_PER_PROCESSOR;
+        return Math.max(1, (size + chunks - 1) / chunks);
+    }
+
+    /**
+     * Runs {@code chunk} on the {@code [from, to)} range, if it's at most {@code chunkSize} long.
+     * Otherwise, splits the range in two halves: the second one is processed in a new fork, the
+     * first one in the current thread, and the results are combined.
+     */
+    private static <R> R splitAndRun(
+            Scope scope,
+            int from,
+            int to,
+            int chunkSize,
+            ChunkFunction<R> chunk,
+            ThrowingBiFunction<R, R, R> combine)
+            throws Exception {
+        if (to - from <= chunkSize) {
+            return chunk.apply(from, to);
+        }
+
+        var mid = (from + to) >>> 1;
+        var second = scope.fork(() -> splitAndRun(scope, mid, to, chunkSize, chunk, combine));
+        var first = splitAndRun(scope, from, mid, chunkSize, chunk, combine);
+        return combine.apply(first, second.join());
+    }
+
+    /** Processes the elements in the {@code [from, to)} range, without boxing the bounds. */
+    @FunctionalInterface
+    private interface ChunkFunction<R> {
+        R apply(int from, int to) throws Exception;
+    }
 }
@@ -2,10 +2,12 @@ package com.softwaremill.jox.structured;
 
 import static com.softwaremill.jox.structured.Scopes.supervised;
 
+import java.time.Duration;
 import java.util.ArrayDeque;
 import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 public final class Race {
@@ -144,6 +146,109 @@ public final class Race {
         }
     }
 
+    /**
+     * Runs {@code f}, and if it doesn't complete within {@code delay}, starts another attempt
+     * running {@code f}, racing it with the first one - up to {@code maxAttempts} attempts in
+     * total. Returns the result of the first attempt to complete successfully; any other attempts
+     * are then interrupted.
+     *
+     * <p>This protects against tail latency, while only increasing the load for slow calls (unlike
+     * {@link #race(List)}, which starts all computations at once).
+     *
+     * @see #hedged(HedgeDelay, int, Callable)
+     */
+    public static <T> T hedged(Duration delay, int maxAttempts, Callable<T> f)
+            throws InterruptedException {
+        return hedged(HedgeDelay.fixed(delay), maxAttempts, f);
+    }
+
+    /**
+     * Runs {@code f}, and if it doesn't complete within the delay given by {@code delay}, starts
+     * another attempt running {@code f}, racing it with the previous ones - up to {@code
+     * maxAttempts} attempts in total. Returns the result of the first attempt to complete
+     * successfully; any other attempts are then interrupted.
+     *
+     * <p>If an attempt fails, the next one is started immediately (if there are attempts left). If
+     * all attempts fail, throws the first exception, with the other ones added as suppressed.
+     *
+     * <p>The latency of each successful call, measured from the start of its first attempt, is
+     * reported to {@code delay}, which allows using an adaptive delay, such as {@link
+     * HedgeDelay#percentile(double, Duration, int)}.
+     */
+    public static <T> T hedged(HedgeDelay delay, int maxAttempts, Callable<T> f)
+            throws InterruptedException {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be positive");
+        }
+
+        var exceptions = new ArrayDeque<Exception>();
+
+        try {
+            return supervised(
+                    scope -> {
+                        var attemptResults = new ArrayBlockingQueue<>(maxAttempts);
+                        Callable<Void> attempt =
+                                () -> {
+                                    try {
+                                        T r = f.call();
+                                        attemptResults.add(
+                                                r == null
+                                                        ? MagicConstants.NULL_WRAPPER_IN_RACE
+                                                        : r);
+                                    } catch (Exception e) {
+                                        attemptResults.add(new ExceptionWrapperInRace(e));
+                                    }
+                                    return null;
+                                };
+
+                        // the latency includes the time spent on the attempts which lost, so
+                        // that slow attempts are reflected in the delay
+                        var start = System.nanoTime();
+                        scope.forkUnsupervised(attempt);
+                        int started = 1;
+                        int completed = 0;
+                        while (true) {
+                            Object next;
+                            if (started < maxAttempts) {
+                                next =
+                                        attemptResults.poll(
+                                                delay.delayNanos(), TimeUnit.NANOSECONDS);
+                                if (next == null) {
+                                    // the delay elapsed, hedging
+                                    scope.forkUnsupervised(attempt);
+                                    started++;
+                                    continue;
+                                }
+                            } else {
+                                next = attemptResults.take();
+                            }
+                            completed++;
+
+                            if (next instanceof ExceptionWrapperInRace(Exception e)) {
+                                exceptions.add(e);
+                                if (started < maxAttempts) {
+                                    scope.forkUnsupervised(attempt);
+                                    started++;
+                                } else if (completed == started) {
+                                    throw exceptions.pollFirst();
+                                }
+                            } else {
+                                delay.onSuccess(System.nanoTime() - start);
+                                //noinspection unchecked
+                                return next == MagicConstants.NULL_WRAPPER_IN_RACE
+                                        ? null
+                                        : (T) next;
+                            }
+                        }
+                    });
+        } catch (JoxScopeExecutionException e) {
+            while (!exceptions.isEmpty()) {
+                e.addSuppressed(exceptions.pollFirst());
+            }
+            throw e;
+        }
+    }
+
     private record ExceptionWrapperInRace(Exception e) {}
 
     private record ExceptionWrapperInRaceResult(Exception e) {}
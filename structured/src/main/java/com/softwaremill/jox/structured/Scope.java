@@ -1,5 +1,6 @@
 package com.softwaremill.jox.structured;
 
+import java.util.List;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
@@ -7,6 +8,16 @@ import java.util.concurrent.locks.ReentrantLock;
 
 import com.softwaremill.jox.ChannelDone;
 import com.softwaremill.jox.ChannelError;
+import com.softwaremill.jox.Jfr;
+import com.softwaremill.jox.JoxMetrics;
+import com.softwaremill.jox.WaitForGraph;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
 
 /**
  * Capability granted by an {@link Scopes#supervised(Scoped)} concurrency scope.
@@ -33,6 +44,8 @@ public final class Scope {
     }
 
     <T> T run(Scoped<T> f) throws InterruptedException {
+        var event = Jfr.isAvailable() ? new ScopeRunEvent() : null;
+        if (event != null) event.begin();
         try {
             try {
                 try {
@@ -41,6 +54,9 @@ public final class Scope {
                     while (true) {
                         switch (supervisor.getCommands().receiveOrClosed()) {
                             case RunFork<?> r -> rawScope.fork(r);
+                            case RunForks rs -> {
+                                for (var r : rs.forks()) rawScope.fork(r);
+                            }
                             case ChannelDone _ -> {
                                 // if no exceptions, the main f-fork must be done by now
                                 try {
@@ -67,7 +83,10 @@ public final class Scope {
             // below. That's why we add all the other exceptions as suppressed.
         } catch (Throwable e) {
             supervisor.addSuppressedErrors(e);
+            if (event != null) event.failed = true;
             throw e;
+        } finally {
+            if (event != null) event.commit();
         }
     }
 
@@ -76,7 +95,12 @@ public final class Scope {
         // that it should cleanup as well. Due to its design, this can only be done by a
         // work-around: setting a scope-done flag, and forking an empty computation; our joiner
         // implementation will get notified of this, read the flag, and decide to cancel the "raw"
-        // scope.
+        // scope. The empty computation is never run: as the scope is cancelled when it's forked,
+        // no thread is created for it.
+        //
+        // The flag can't be set by the fork which ends the scope: forks which are still in the
+        // commands channel (sent before the scope ended) must be started, before the raw scope
+        // is cancelled.
         scopeDone.set(true);
         rawScope.fork(() -> {});
         rawScope.join();
@@ -96,27 +120,59 @@ public final class Scope {
      */
     public <T> Fork<T> fork(Callable<T> f) throws InterruptedException {
         var result = new ForkUsingResult<T>();
-        supervisor
-                .getCommands()
-                .send(
-                        (RunFork<T>)
-                                () -> {
-                                    try {
-                                        result.complete(f.call());
-                                    } catch (Throwable e) {
-                                        // we notify the supervisor first, so that if this is the
-                                        // first failing fork in the scope, the supervisor will
-                                        // get first notified of the exception by the "original"
-                                        // (this) fork if the supervisor doesn't end the scope, the
-                                        // exception will be thrown when joining the result;
-                                        // otherwise, not completing the result; any joins will
-                                        // end up being interrupted
-                                        if (!supervisor.forkException(e)) {
-                                            result.completeExceptionally(e);
-                                        }
+        startFork(
+                (RunFork<T>)
+                        () -> {
+                            try {
+                                result.complete(callFork(this, result, f));
+                            } catch (Throwable e) {
+                                // we notify the supervisor first, so that if this is the first
+                                // failing fork in the scope, the supervisor will get first
+                                // notified of the exception by the "original" (this) fork if the
+                                // supervisor doesn't end the scope, the exception will be thrown
+                                // when joining the result; otherwise, not completing the result;
+                                // any joins will end up being interrupted
+                                if (!supervisor.forkException(e)) {
+                                    result.completeExceptionally(e);
+                                }
+                            }
+                            return null;
+                        });
+        return result;
+    }
+
+    /**
+     * Starts a batch of forks, one for each of the given computations, which are guaranteed to
+     * complete before the enclosing {@link Scopes#supervised(Scoped)} block completes.
+     *
+     * <p>Each fork behaves as a daemon thread, just as one started using {@link #fork(Callable)}.
+     * An exception thrown while evaluating any of the computations will cause the enclosing scope
+     * to end (cancelling all other running forks).
+     *
+     * <p>The forks are started at once, and their results are tracked using a single, array-backed
+     * {@link Forks} instance, which makes this cheaper than calling {@link #fork(Callable)} for
+     * each computation when there are many of them.
+     */
+    public <T> Forks<T> forkAll(List<Callable<T>> fs) throws InterruptedException {
+        var result = new ForksUsingResults<T>(fs.size());
+        var forks = new RunFork<?>[fs.size()];
+        var i = 0;
+        for (Callable<T> f : fs) {
+            var index = i++;
+            forks[index] =
+                    (RunFork<T>)
+                            () -> {
+                                try {
+                                    result.complete(index, callFork(this, result, f));
+                                } catch (Throwable e) {
+                                    if (!supervisor.forkException(e)) {
+                                        result.completeExceptionally(e);
                                     }
-                                    return null;
-                                });
+                                }
+                                return null;
+                            };
+        }
+        startForks(forks);
         return result;
     }
 
@@ -134,24 +190,35 @@ public final class Scope {
     public <T> Fork<T> forkUser(Callable<T> f) throws InterruptedException {
         var result = new ForkUsingResult<T>();
         supervisor.forkUserStarts();
-        supervisor
-                .getCommands()
-                .send(
-                        (RunFork<T>)
-                                () -> {
-                                    try {
-                                        result.complete(f.call());
-                                        supervisor.forkUserSuccess();
-                                    } catch (Throwable e) {
-                                        if (!supervisor.forkException(e)) {
-                                            result.completeExceptionally(e);
-                                        }
-                                    }
-                                    return null;
-                                });
+        startFork(
+                (RunFork<T>)
+                        () -> {
+                            try {
+                                result.complete(callFork(this, result, f));
+                                supervisor.forkUserSuccess();
+                            } catch (Throwable e) {
+                                if (!supervisor.forkException(e)) {
+                                    result.completeExceptionally(e);
+                                }
+                            }
+                            return null;
+                        });
         return result;
     }
 
+    /**
+     * Starts a fork, which runs the CPU-bound computation {@code f} on the {@link Compute} pool of
+     * platform threads, instead of on a virtual thread. This way, compute-heavy work doesn't
+     * monopolize the carrier threads, starving I/O-bound forks.
+     *
+     * <p>Otherwise, the fork behaves as one started using {@link #fork(Callable)}: it's a daemon,
+     * supervised fork. When the fork is cancelled, the thread running {@code f} is interrupted, and
+     * the fork completes only once {@code f} completes.
+     */
+    public <T> Fork<T> forkCompute(Callable<T> f) throws InterruptedException {
+        return fork(() -> Compute.compute(f));
+    }
+
     /**
      * Starts a fork (logical thread of execution), which is guaranteed to complete before the
      * enclosing {@link Scopes#supervised(Scoped)} block completes.
@@ -166,18 +233,16 @@ public final class Scope {
      */
     public <T> Fork<T> forkUnsupervised(Callable<T> f) throws InterruptedException {
         var result = new ForkUsingResult<T>();
-        supervisor
-                .getCommands()
-                .send(
-                        (RunFork<T>)
-                                () -> {
-                                    try {
-                                        result.complete(f.call());
-                                    } catch (Throwable e) {
-                                        result.completeExceptionally(e);
-                                    }
-                                    return null;
-                                });
+        startFork(
+                (RunFork<T>)
+                        () -> {
+                            try {
+                                result.complete(callFork(this, result, f));
+                            } catch (Throwable e) {
+                                result.completeExceptionally(e);
+                            }
+                            return null;
+                        });
         return result;
     }
 
@@ -204,48 +269,91 @@ public final class Scope {
         // forks can be never run, if they are cancelled immediately - we need to detect this, not
         // to await on result.get()
         var result = new CancellableForkUsingResult<T>();
-        supervisor
-                .getCommands()
-                .send(
-                        (RunFork<T>)
-                                () -> {
-                                    new Scope()
-                                            .run(
-                                                    nestedScope ->
-                                                            forkCancellableNestedScope(
-                                                                    nestedScope, result, f));
-                                    return null;
-                                });
+        startFork(
+                (RunFork<T>)
+                        () -> {
+                            new Scope()
+                                    .run(
+                                            nestedScope ->
+                                                    forkCancellableNestedScope(
+                                                            nestedScope, result, f));
+                            return null;
+                        });
         return result;
     }
 
     private static <T> Void forkCancellableNestedScope(
             Scope nestedScope, CancellableForkUsingResult<T> result, Callable<T> f)
             throws InterruptedException {
-        nestedScope
-                .getSupervisor()
-                .getCommands()
-                .send(
-                        (RunFork<T>)
-                                () -> {
-                                    // "else" means that the fork is already cancelled, so doing
-                                    // nothing in that case
-                                    if (result.checkNotStartedThenStart()) {
-                                        try {
-                                            result.complete(f.call());
-                                        } catch (Throwable e) {
-                                            result.completeExceptionally(e);
-                                        }
-                                    }
+        nestedScope.startFork(
+                (RunFork<T>)
+                        () -> {
+                            // "else" means that the fork is already cancelled, so doing
+                            // nothing in that case
+                            if (result.checkNotStartedThenStart()) {
+                                try {
+                                    result.complete(callFork(nestedScope, result, f));
+                                } catch (Throwable e) {
+                                    result.completeExceptionally(e);
+                                }
+                            }
 
-                                    // the nested scope can now finish
-                                    result.done.release();
-                                    return null;
-                                });
+                            // the nested scope can now finish
+                            result.done.release();
+                            return null;
+                        });
         result.done.acquire();
         return null;
     }
 
+    /**
+     * Starts the given fork in the raw scope. Only the owner of the raw scope can fork, hence the
+     * fork is sent to the main loop of {@link #run(Scoped)}, which runs on the owner thread.
+     * Completion and failures are signalled through the {@link Supervisor}.
+     */
+    private void startFork(RunFork<?> r) throws InterruptedException {
+        supervisor.getCommands().send(r);
+    }
+
+    /**
+     * Starts the given forks in the raw scope, similarly to {@link #startFork(RunFork)}, sending
+     * them to the main loop as a single command.
+     */
+    private void startForks(RunFork<?>[] rs) throws InterruptedException {
+        supervisor.getCommands().send(new RunForks(rs));
+    }
+
+    /**
+     * Runs the body of a fork, reporting its start and failure if metrics are enabled, and its
+     * duration as a JFR event. If parked channel operations are tracked, sets the fork as the owner
+     * of the current thread, until the fork completes.
+     */
+    private static <T> T callFork(Scope scope, Object fork, Callable<T> f) throws Exception {
+        var ownerSet = WaitForGraph.isTracking();
+        if (ownerSet) {
+            WaitForGraph.setCurrentOwner(
+                    "Scope@"
+                            + Integer.toHexString(System.identityHashCode(scope))
+                            + " fork@"
+                            + Integer.toHexString(System.identityHashCode(fork)));
+        }
+
+        var event = Jfr.isAvailable() ? new ForkRunEvent() : null;
+        if (event != null) event.begin();
+        if (JoxMetrics.isEnabled()) JoxMetrics.current().onForkStarted();
+        try {
+            return f.call();
+        } catch (Throwable e) {
+            if (JoxMetrics.isEnabled()) JoxMetrics.current().onForkFailed(e);
+            if (event != null) event.failed = true;
+            throw e;
+        } finally {
+            if (event != null) event.commit();
+            // the thread might be reused, e.g. when forks run on a pool of carrier threads
+            if (ownerSet) WaitForGraph.setCurrentOwner(null);
+        }
+    }
+
     /**
      * Returns a concurrency-scope-specific runner, which allows scheduling of functions to be run
      * within the current concurrency scope, from the context of arbitrary threads (not necessarily
@@ -301,3 +409,25 @@ public final class Scope {
 interface ExternalScheduler {
     void run(ThrowingConsumer<Scope> r) throws Exception;
 }
+
+/** JFR event, covering the run of a concurrency scope, until all of its forks complete. */
+@Name("jox.ScopeRun")
+@Label("Scope Run")
+@Description("A concurrency scope, from start until all forks complete")
+@Category({"Jox", "Structured"})
+@Threshold("20 ms")
+final class ScopeRunEvent extends Event {
+    @Label("Failed")
+    boolean failed;
+}
+
+/** JFR event, covering the run of a fork's body. */
+@Name("jox.ForkRun")
+@Label("Fork Run")
+@Description("The body of a fork, run in a concurrency scope")
+@Category({"Jox", "Structured"})
+@Threshold("20 ms")
+final class ForkRunEvent extends Event {
+    @Label("Failed")
+    boolean failed;
+}
@@ -0,0 +1,92 @@
+package com.softwaremill.jox.structured;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Coalesces concurrent computations for the same key: while a computation for a key is running,
+ * other callers requesting the same key don't start their own computations, but wait for the result
+ * of the running one. Useful e.g. to avoid a thundering herd of calls to a backend, when a cache
+ * entry expires.
+ *
+ * <p>The computation is run by the first caller (the "leader"), on its own thread - hence, within
+ * the leader's concurrency scope. Cancellation is tied to the scopes of the callers:
+ *
+ * <ul>
+ *   <li>if a waiting caller is interrupted (e.g. because its scope ends), it stops waiting, without
+ *       affecting the computation or the other callers
+ *   <li>if the leader is interrupted, the computation is interrupted; then, one of the waiting
+ *       callers becomes the new leader, and runs the computation again
+ * </ul>
+ *
+ * <p>Any other exception thrown by the computation is re-thrown to all callers waiting for its
+ * result. Results aren't cached: once a computation completes, the next call for the same key
+ * starts a new one.
+ */
+public final class SingleFlight<K, V> {
+    private final ConcurrentHashMap<K, CompletableFuture<Object>> inFlight =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Runs {@code f}, unless a computation for {@code key} is already running; in that case, waits
+     * for its result instead.
+     */
+    public V run(K key, Callable<V> f) throws Exception {
+        while (true) {
+            var call = new CompletableFuture<Object>();
+            var existing = inFlight.putIfAbsent(key, call);
+            if (existing == null) {
+                return lead(key, call, f);
+            }
+
+            Object result;
+            try {
+                result = existing.get();
+            } catch (ExecutionException e) {
+                throw SneakyThrows.sneakyThrow(e.getCause());
+            }
+            if (result != LeaderInterruptedMarker.INTERRUPTED) {
+                //noinspection unchecked
+                return (V) result;
+            }
+            // else: the leader was interrupted, trying to become the new leader
+        }
+    }
+
+    /**
+     * @return The number of keys, for which a computation is currently running.
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private V lead(K key, CompletableFuture<Object> call, Callable<V> f) throws Exception {
+        try {
+            V v = f.call();
+            complete(key, call, () -> call.complete(v));
+            return v;
+        } catch (InterruptedException e) {
+            complete(key, call, () -> call.complete(LeaderInterruptedMarker.INTERRUPTED));
+            throw e;
+        } catch (Throwable e) {
+            complete(key, call, () -> call.completeExceptionally(e));
+            throw e;
+        }
+    }
+
+    private void complete(K key, CompletableFuture<Object> call, Runnable completeCall) {
+        // removing first, so that callers retrying after an interrupted leader don't find the
+        // completed call
+        inFlight.remove(key, call);
+        completeCall.run();
+    }
+
+    // used to complete the call when the leader is interrupted, so that a waiting caller retries,
+    // instead of returning the marker as the result - a special type, not possible to be returned
+    // by the computation
+    private enum LeaderInterruptedMarker {
+        INTERRUPTED
+    }
+}
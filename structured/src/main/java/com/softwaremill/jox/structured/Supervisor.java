@@ -1,26 +1,43 @@
 package com.softwaremill.jox.structured;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import com.softwaremill.jox.Channel;
 
 final class Supervisor {
-    private final AtomicInteger runningUserForks = new AtomicInteger(0);
+    private volatile int runningUserForks = 0;
     // used a single-complete cell to record the first exception (or success)
     private final CompletableFuture<Object> result = new CompletableFuture<>();
-    private final Set<Throwable> otherExceptions = ConcurrentHashMap.newKeySet();
+    // created lazily, as most scopes end with at most one exception
+    private volatile Set<Throwable> otherExceptions;
     private final Channel<SupervisorCommand> commands = Channel.newBufferedDefaultChannel();
 
+    /** VarHandles for atomic operations on the fields, to avoid allocating atomic wrappers */
+    private static final VarHandle RUNNING_USER_FORKS;
+
+    private static final VarHandle OTHER_EXCEPTIONS;
+
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            RUNNING_USER_FORKS = l.findVarHandle(Supervisor.class, "runningUserForks", int.class);
+            OTHER_EXCEPTIONS = l.findVarHandle(Supervisor.class, "otherExceptions", Set.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     void forkUserStarts() {
-        runningUserForks.incrementAndGet();
+        RUNNING_USER_FORKS.getAndAdd(this, 1);
     }
 
     void forkUserSuccess() {
-        int v = runningUserForks.decrementAndGet();
+        int v = (int) RUNNING_USER_FORKS.getAndAdd(this, -1) - 1;
         if (v == 0) {
             result.complete(null);
             commands.done();
@@ -29,15 +46,28 @@ final class Supervisor {
 
     boolean forkException(Throwable e) {
         if (!result.completeExceptionally(e)) {
-            otherExceptions.add(e);
+            otherExceptions().add(e);
         } else {
             commands.error(e);
         }
         return true;
     }
 
+    private Set<Throwable> otherExceptions() {
+        var s = otherExceptions;
+        if (s == null) {
+            OTHER_EXCEPTIONS.compareAndSet(this, null, ConcurrentHashMap.newKeySet());
+            s = otherExceptions;
+        }
+        return s;
+    }
+
     void addSuppressedErrors(Throwable e) {
-        for (Throwable e2 : otherExceptions) {
+        var s = otherExceptions;
+        if (s == null) {
+            return;
+        }
+        for (Throwable e2 : s) {
             if (!e.equals(e2)) {
                 e.addSuppressed(e2);
             }
@@ -52,3 +82,5 @@ final class Supervisor {
 interface SupervisorCommand {}
 
 interface RunFork<T> extends SupervisorCommand, Callable<T> {}
+
+record RunForks(RunFork<?>[] forks) implements SupervisorCommand {}
@@ -1,5 +1,7 @@
 module com.softwaremill.jox.structured {
     requires com.softwaremill.jox;
+    // optional: JFR events are only emitted if JFR is available
+    requires static jdk.jfr;
 
     exports com.softwaremill.jox.structured;
 }
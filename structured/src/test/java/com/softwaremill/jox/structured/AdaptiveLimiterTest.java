@@ -0,0 +1,129 @@
+package com.softwaremill.jox.structured;
+
+import static com.softwaremill.jox.structured.Par.parLimit;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+public class AdaptiveLimiterTest {
+    @Test
+    void testAimdIncreasesLimitOnlyWhenUsedAndDecreasesOnFailure() throws Exception {
+        var limiter = AdaptiveLimiter.aimd(4, 1, 10, Duration.ofSeconds(1), 0.5);
+
+        // using 1 out of 4 permits
+        limiter.run(() -> null);
+        assertEquals(4, limiter.limit());
+
+        // using 2 out of 4 permits
+        limiter.run(() -> limiter.run(() -> null));
+        assertEquals(5, limiter.limit());
+
+        assertThrows(
+                RuntimeException.class,
+                () ->
+                        limiter.run(
+                                () -> {
+                                    throw new RuntimeException("boom");
+                                }));
+        assertEquals(2, limiter.limit());
+    }
+
+    @Test
+    void testLimitIsNotChangedWhenInterrupted() throws Exception {
+        var limiter = AdaptiveLimiter.aimd(4, 1, 10, Duration.ofSeconds(1), 0.5);
+
+        assertThrows(
+                InterruptedException.class,
+                () ->
+                        limiter.run(
+                                () -> {
+                                    throw new InterruptedException();
+                                }));
+        assertEquals(4, limiter.limit());
+
+        // the permit is released: using 2 out of 4 permits increases the limit
+        limiter.run(() -> limiter.run(() -> null));
+        assertEquals(5, limiter.limit());
+    }
+
+    @Test
+    void testAimdDecreasesLimitWhenLatencyExceedsThreshold() throws Exception {
+        var limiter = AdaptiveLimiter.aimd(8, 1, 10, Duration.ofMillis(10), 0.5);
+
+        limiter.run(
+                () -> {
+                    Thread.sleep(50);
+                    return null;
+                });
+
+        assertEquals(4, limiter.limit());
+    }
+
+    @Test
+    void testLimitIsNotDecreasedBelowMinimum() throws Exception {
+        var limiter = AdaptiveLimiter.aimd(2, 2, 10, Duration.ofSeconds(1), 0.5);
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(
+                    RuntimeException.class,
+                    () ->
+                            limiter.run(
+                                    () -> {
+                                        throw new RuntimeException("boom");
+                                    }));
+        }
+
+        assertEquals(2, limiter.limit());
+    }
+
+    @Test
+    void testGradientDecreasesLimitWhenLatencyIncreases() throws Exception {
+        var limiter = AdaptiveLimiter.gradient(10, 1, 100);
+
+        limiter.run(
+                () -> {
+                    Thread.sleep(10);
+                    return null;
+                });
+        var before = limiter.limit();
+        for (int i = 0; i < 5; i++) {
+            limiter.run(
+                    () -> {
+                        Thread.sleep(100);
+                        return null;
+                    });
+        }
+
+        assertTrue(limiter.limit() < before, "limit should decrease: " + limiter.limit());
+    }
+
+    @Test
+    void testParLimitRunsUpToTheLimitInParallel() throws Exception {
+        var limiter = AdaptiveLimiter.aimd(2, 2, 2, Duration.ofSeconds(1), 0.5);
+        AtomicInteger running = new AtomicInteger(0);
+        AtomicInteger max = new AtomicInteger(0);
+
+        var result =
+                parLimit(
+                        limiter,
+                        IntStream.rangeClosed(1, 9)
+                                .<Callable<Integer>>mapToObj(
+                                        i ->
+                                                () -> {
+                                                    int current = running.incrementAndGet();
+                                                    max.updateAndGet(m -> Math.max(current, m));
+                                                    Thread.sleep(50);
+                                                    running.decrementAndGet();
+                                                    return i * 2;
+                                                })
+                                .toList());
+
+        assertIterableEquals(IntStream.rangeClosed(1, 9).map(i -> i * 2).boxed().toList(), result);
+        assertEquals(2, max.get());
+    }
+}
@@ -1,9 +1,14 @@
 package com.softwaremill.jox.structured;
 
 import static com.softwaremill.jox.structured.Scopes.supervised;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertIterableEquals;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
 
 import org.junit.jupiter.api.Test;
 
@@ -105,4 +110,67 @@ public class ForkTest {
                 Arrays.asList("main mid", "f1 complete", "result = 5", "f2 interrupted"),
                 trail.get());
     }
+
+    @Test
+    void testForkAllReturnsResultsInOrder() throws Exception {
+        var fs = new ArrayList<Callable<Integer>>();
+        var expected = new ArrayList<Integer>();
+        for (int i = 0; i < 10_000; i++) {
+            var v = i;
+            fs.add(() -> v * 2);
+            expected.add(v * 2);
+        }
+
+        var result = supervised(scope -> scope.forkAll(fs).joinAll());
+
+        assertIterableEquals(expected, result);
+    }
+
+    @Test
+    void testForkAllWithNoComputations() throws Exception {
+        var result = supervised(scope -> scope.<Integer>forkAll(List.of()).joinAll());
+
+        assertEquals(0, result.size());
+    }
+
+    @Test
+    void testForkComputeRunsOnPlatformThread() throws Exception {
+        var result =
+                supervised(
+                        scope ->
+                                scope.forkCompute(
+                                                () -> {
+                                                    assertFalse(Thread.currentThread().isVirtual());
+                                                    return 5;
+                                                })
+                                        .join());
+
+        assertEquals(5, result);
+    }
+
+    @Test
+    void testForkComputeIsInterruptedWhenScopeEnds() throws Exception {
+        var trail = new Trail();
+        supervised(
+                scope -> {
+                    scope.forkCompute(
+                            () -> {
+                                try {
+                                    Thread.sleep(2000);
+                                    trail.add("compute complete");
+                                } catch (InterruptedException e) {
+                                    trail.add("compute interrupted");
+                                    throw e;
+                                }
+                                return null;
+                            });
+                    Thread.sleep(100);
+                    trail.add("main done");
+                    return null;
+                });
+        trail.add("scope done");
+
+        assertIterableEquals(
+                Arrays.asList("main done", "compute interrupted", "scope done"), trail.get());
+    }
 }
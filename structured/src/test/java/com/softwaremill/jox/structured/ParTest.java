@@ -1,18 +1,30 @@
 package com.softwaremill.jox.structured;
 
 import static com.softwaremill.jox.structured.Par.par;
+import static com.softwaremill.jox.structured.Par.parForEach;
 import static com.softwaremill.jox.structured.Par.parLimit;
+import static com.softwaremill.jox.structured.Par.parMap;
+import static com.softwaremill.jox.structured.Par.parReduce;
+import static com.softwaremill.jox.structured.Par.parStream;
+import static com.softwaremill.jox.structured.Scopes.supervised;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.Test;
 
+import com.softwaremill.jox.ChannelDone;
+import com.softwaremill.jox.ChannelError;
+
 public class ParTest {
     @Test
     void testParRunsComputationsInParallel() throws Exception {
@@ -37,6 +49,17 @@ public class ParTest {
         assertIterableEquals(Arrays.asList("b", "a", "done"), trail.get());
     }
 
+    @Test
+    void testParReturnsAMutableList() throws Exception {
+        List<Callable<Integer>> fs = List.of(() -> 1, () -> 2);
+
+        var result = par(fs);
+        result.add(3);
+        result.remove(0);
+
+        assertIterableEquals(List.of(2, 3), result);
+    }
+
     @Test
     void testParInterruptsOtherComputationsIfOneFails() throws InterruptedException {
         Trail trail = new Trail();
@@ -123,4 +146,203 @@ public class ParTest {
         assertIterableEquals(
                 Arrays.asList("x", "x", "exception", "catch", "all done"), trail.get());
     }
+
+    @Test
+    void testParMapReturnsResultsInOrder() throws Exception {
+        var list = IntStream.range(0, 100_000).boxed().toList();
+
+        var result = parMap(list, i -> i * 2);
+
+        assertIterableEquals(list.stream().map(i -> i * 2).toList(), result);
+    }
+
+    @Test
+    void testParMapReturnsAMutableList() throws Exception {
+        var result = parMap(List.of(1, 2), i -> i * 2);
+        result.add(6);
+        result.remove(0);
+
+        assertIterableEquals(List.of(4, 6), result);
+    }
+
+    @Test
+    void testParMapWithNoElements() throws Exception {
+        assertEquals(0, parMap(List.<Integer>of(), i -> i * 2).size());
+    }
+
+    @Test
+    void testParForEachRunsForEachElement() throws Exception {
+        var sum = new LongAdder();
+
+        parForEach(IntStream.rangeClosed(1, 100_000).boxed().toList(), i -> sum.add(i));
+
+        assertEquals(5_000_050_000L, sum.sum());
+    }
+
+    @Test
+    void testParReduceCombinesChunksInOrder() throws Exception {
+        var list = IntStream.range(0, 1000).mapToObj(Integer::toString).toList();
+
+        var result = parReduce(list, "", (acc, s) -> acc + s + ",", (s1, s2) -> s1 + s2);
+
+        assertEquals(String.join(",", list) + ",", result);
+    }
+
+    @Test
+    void testParMapInterruptsOtherChunksIfOneFails() throws InterruptedException {
+        var list = IntStream.range(0, 1000).boxed().toList();
+        try {
+            parMap(
+                    list,
+                    i -> {
+                        if (i == 500) {
+                            throw new Exception("boom");
+                        }
+                        return i;
+                    });
+        } catch (JoxScopeExecutionException e) {
+            assertEquals("boom", e.getCause().getMessage());
+            return;
+        }
+        throw new AssertionError("should have thrown");
+    }
+
+    @Test
+    void testParStreamReturnsResultsInCompletionOrder() throws Exception {
+        var result =
+                supervised(
+                        scope -> {
+                            var source =
+                                    parStream(
+                                            scope,
+                                            3,
+                                            List.<Callable<Integer>>of(
+                                                    () -> {
+                                                        Thread.sleep(300);
+                                                        return 1;
+                                                    },
+                                                    () -> {
+                                                        Thread.sleep(100);
+                                                        return 2;
+                                                    },
+                                                    () -> {
+                                                        Thread.sleep(200);
+                                                        return 3;
+                                                    }));
+                            return List.of(
+                                    source.receive(),
+                                    source.receive(),
+                                    source.receive(),
+                                    source.receiveOrClosed());
+                        });
+
+        assertEquals(List.of(2, 3, 1), result.subList(0, 3));
+        assertEquals(ChannelDone.class, result.get(3).getClass());
+    }
+
+    @Test
+    void testParStreamRunsUpToGivenNumberOfComputationsInParallel() throws Exception {
+        AtomicInteger running = new AtomicInteger(0);
+        AtomicInteger max = new AtomicInteger(0);
+        var fs =
+                IntStream.rangeClosed(1, 9)
+                        .<Callable<Integer>>mapToObj(
+                                i ->
+                                        () -> {
+                                            int current = running.incrementAndGet();
+                                            max.updateAndGet(m -> Math.max(current, m));
+                                            Thread.sleep(50);
+                                            running.decrementAndGet();
+                                            return i;
+                                        })
+                        .toList();
+
+        var sum =
+                supervised(
+                        scope -> {
+                            var source = parStream(scope, 2, fs);
+                            var total = 0;
+                            for (int i = 0; i < 9; i++) {
+                                total += source.receive();
+                            }
+                            return total;
+                        });
+
+        assertEquals(45, sum);
+        assertEquals(2, max.get());
+    }
+
+    @Test
+    void testParStreamErrorsTheSourceIfAComputationFails() throws Exception {
+        var trail = new Trail();
+        var result =
+                supervised(
+                        scope -> {
+                            var source =
+                                    parStream(
+                                            scope,
+                                            2,
+                                            List.<Callable<Integer>>of(
+                                                    () -> {
+                                                        try {
+                                                            Thread.sleep(500);
+                                                        } catch (InterruptedException e) {
+                                                            trail.add("interrupted");
+                                                            throw e;
+                                                        }
+                                                        return 1;
+                                                    },
+                                                    () -> {
+                                                        Thread.sleep(100);
+                                                        throw new Exception("boom");
+                                                    }));
+                            return source.receiveOrClosed();
+                        });
+
+        assertEquals("boom", ((ChannelError) result).cause().getMessage());
+        assertIterableEquals(List.of("interrupted"), trail.get());
+    }
+
+    @Test
+    void testParStreamRejectsNonPositiveParallelism() throws Exception {
+        supervised(
+                scope -> {
+                    assertThrows(
+                            IllegalArgumentException.class,
+                            () -> parStream(scope, 0, List.<Callable<Integer>>of(() -> 1)));
+                    return null;
+                });
+    }
+
+    @Test
+    void testParStreamDoesNotErrorTheSourceWhenTheScopeEnds() throws Exception {
+        var trail = new Trail();
+        var computationStarted = new CountDownLatch(1);
+        var source =
+                supervised(
+                        scope -> {
+                            var s =
+                                    parStream(
+                                            scope,
+                                            1,
+                                            List.<Callable<Integer>>of(
+                                                    () -> {
+                                                        computationStarted.countDown();
+                                                        try {
+                                                            Thread.sleep(10_000);
+                                                        } catch (InterruptedException e) {
+                                                            trail.add("interrupted");
+                                                            throw e;
+                                                        }
+                                                        return 1;
+                                                    }));
+                            // otherwise, the scope might end before the computation is forked
+                            computationStarted.await();
+                            return s;
+                        });
+
+        // the scope waits for its forks, so the computation is already interrupted
+        assertIterableEquals(List.of("interrupted"), trail.get());
+        assertFalse(source.isClosedForReceive());
+    }
 }
@@ -1,13 +1,17 @@
 package com.softwaremill.jox.structured;
 
+import static com.softwaremill.jox.structured.Race.hedged;
 import static com.softwaremill.jox.structured.Race.race;
 import static com.softwaremill.jox.structured.Race.timeout;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.Test;
@@ -156,4 +160,137 @@ public class RaceTest {
                         .map(Throwable::getMessage)
                         .collect(Collectors.toSet()));
     }
+
+    @Test
+    void testHedgedDoesNotStartAnotherAttemptIfFirstIsFast() throws Exception {
+        var attempts = new AtomicInteger();
+        var result =
+                hedged(
+                        Duration.ofMillis(500),
+                        3,
+                        () -> {
+                            attempts.incrementAndGet();
+                            return 5;
+                        });
+
+        assertEquals(5, result);
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void testHedgedStartsAnotherAttemptAfterDelayAndInterruptsTheLoser() throws Exception {
+        var trail = new Trail();
+        var attempts = new AtomicInteger();
+        var result =
+                hedged(
+                        Duration.ofMillis(100),
+                        2,
+                        () -> {
+                            if (attempts.incrementAndGet() == 1) {
+                                try {
+                                    Thread.sleep(1000);
+                                } catch (InterruptedException e) {
+                                    trail.add("first interrupted");
+                                    throw e;
+                                }
+                                return 1;
+                            } else {
+                                trail.add("second done");
+                                return 2;
+                            }
+                        });
+
+        assertEquals(2, result);
+        assertIterableEquals(Arrays.asList("second done", "first interrupted"), trail.get());
+    }
+
+    @Test
+    void testHedgedReportsTheLatencyOfTheWholeCall() throws Exception {
+        var latencies = new ConcurrentLinkedQueue<Long>();
+        var delay =
+                new HedgeDelay() {
+                    @Override
+                    public long delayNanos() {
+                        return Duration.ofMillis(100).toNanos();
+                    }
+
+                    @Override
+                    public void onSuccess(long latencyNanos) {
+                        latencies.add(latencyNanos);
+                    }
+                };
+        var attempts = new AtomicInteger();
+
+        var result =
+                hedged(
+                        delay,
+                        2,
+                        () -> {
+                            if (attempts.incrementAndGet() == 1) {
+                                Thread.sleep(1000);
+                                return 1;
+                            } else {
+                                return 2;
+                            }
+                        });
+
+        // the second attempt completes immediately, but the call took at least the delay
+        assertEquals(2, result);
+        assertEquals(1, latencies.size());
+        assertTrue(latencies.peek() >= Duration.ofMillis(100).toNanos());
+    }
+
+    @Test
+    void testHedgedThrowsFirstExceptionIfAllAttemptsFail() {
+        var attempts = new AtomicInteger();
+        try {
+            hedged(
+                    Duration.ofMillis(100),
+                    3,
+                    () -> {
+                        throw new RuntimeException("boom " + attempts.incrementAndGet());
+                    });
+            fail("should have thrown");
+        } catch (Exception e) {
+            assertEquals("boom 1", e.getCause().getMessage());
+            assertEquals(
+                    Set.of("boom 2", "boom 3"),
+                    Arrays.stream(e.getSuppressed())
+                            .map(Throwable::getMessage)
+                            .collect(Collectors.toSet()));
+        }
+    }
+
+    @Test
+    void testPercentileHedgeDelay() {
+        var delay = HedgeDelay.percentile(0.9, Duration.ofMillis(50), 10);
+        assertEquals(Duration.ofMillis(50).toNanos(), delay.delayNanos());
+
+        for (int i = 1; i <= 10; i++) {
+            delay.onSuccess(i * 100L);
+        }
+        assertEquals(900L, delay.delayNanos());
+
+        // the oldest latencies are replaced
+        for (int i = 0; i < 5; i++) {
+            delay.onSuccess(2000L);
+        }
+        assertEquals(2000L, delay.delayNanos());
+    }
+
+    @Test
+    void testPercentileHedgeDelayIsRecomputedEveryFewLatencies() {
+        // with a window of 32, the percentile is recomputed every 2 latencies
+        var delay = HedgeDelay.percentile(1.0, Duration.ofMillis(50), 32);
+        for (int i = 1; i <= 32; i++) {
+            delay.onSuccess(i);
+        }
+        assertEquals(32L, delay.delayNanos());
+
+        delay.onSuccess(1000L);
+        assertEquals(32L, delay.delayNanos());
+
+        delay.onSuccess(1L);
+        assertEquals(1000L, delay.delayNanos());
+    }
 }
@@ -2,12 +2,19 @@ package com.softwaremill.jox.structured;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
 import java.util.Queue;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import com.softwaremill.jox.ChannelClosedException;
 
 public class ScopeTest {
 
@@ -61,4 +68,104 @@ public class ScopeTest {
         ee = assertThrows(ExecutionException.class, fork::cancel);
         assertInstanceOf(InterruptedException.class, ee.getCause());
     }
+
+    @Test
+    @Timeout(5)
+    void shouldEndTheScopeWhenTheBodyCompletesWhileDaemonForksArePending()
+            throws ExecutionException, InterruptedException {
+        // given
+        var daemonInterrupted = new AtomicBoolean(false);
+
+        // when
+        var result =
+                Scopes.supervised(
+                        scope -> {
+                            scope.fork(
+                                    () -> {
+                                        try {
+                                            Thread.sleep(Long.MAX_VALUE);
+                                        } catch (InterruptedException e) {
+                                            daemonInterrupted.set(true);
+                                            throw e;
+                                        }
+                                        return null;
+                                    });
+                            return "done";
+                        });
+
+        // then
+        // the scope ends without waiting for the daemon fork, which is cancelled before the scope
+        // returns
+        assertEquals("done", result);
+        assertTrue(daemonInterrupted.get());
+    }
+
+    @Test
+    @Timeout(5)
+    void shouldStartForksCreatedJustBeforeTheScopeEnds()
+            throws ExecutionException, InterruptedException {
+        // given
+        var forks = 1000;
+        var started = new AtomicInteger(0);
+        var computations = new ArrayList<Callable<Void>>(forks);
+        for (int i = 0; i < forks; i++) {
+            computations.add(
+                    () -> {
+                        started.incrementAndGet();
+                        Thread.sleep(Long.MAX_VALUE);
+                        return null;
+                    });
+        }
+
+        // when
+        // the body ends the scope right after creating the forks, while they are still being
+        // started by the scope's main loop
+        Scopes.supervised(
+                scope -> {
+                    scope.forkAll(computations);
+                    return null;
+                });
+
+        // then
+        // the raw scope is cancelled only after all forks created before the scope ended are
+        // started
+        assertEquals(forks, started.get());
+    }
+
+    @Test
+    @Timeout(5)
+    void shouldNotStartForksAfterTheScopeEnds() throws ExecutionException, InterruptedException {
+        // given
+        var lateForkStarted = new AtomicBoolean(false);
+        var lateForkException = new AtomicReference<Exception>();
+
+        // when
+        Scopes.supervised(
+                scope -> {
+                    scope.fork(
+                            () -> {
+                                try {
+                                    Thread.sleep(Long.MAX_VALUE);
+                                } catch (InterruptedException e) {
+                                    // the scope is ending; trying to start another fork
+                                    try {
+                                        scope.fork(
+                                                () -> {
+                                                    lateForkStarted.set(true);
+                                                    return null;
+                                                });
+                                    } catch (Exception e2) {
+                                        lateForkException.set(e2);
+                                    }
+                                    throw e;
+                                }
+                                return null;
+                            });
+                    return null;
+                });
+
+        // then
+        assertFalse(lateForkStarted.get());
+        assertInstanceOf(ChannelClosedException.class, lateForkException.get());
+    }
 }
@@ -0,0 +1,133 @@
+package com.softwaremill.jox.structured;
+
+import static com.softwaremill.jox.structured.Scopes.supervised;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class SingleFlightTest {
+    @Test
+    void testConcurrentCallsForTheSameKeyRunOnce() throws Exception {
+        var singleFlight = new SingleFlight<String, Integer>();
+        var calls = new AtomicInteger();
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+
+        var results =
+                supervised(
+                        scope -> {
+                            var leader =
+                                    scope.fork(
+                                            () ->
+                                                    singleFlight.run(
+                                                            "k",
+                                                            () -> {
+                                                                calls.incrementAndGet();
+                                                                started.countDown();
+                                                                release.await();
+                                                                return 42;
+                                                            }));
+                            started.await();
+
+                            var forks = new ArrayList<Fork<Integer>>();
+                            for (int i = 0; i < 100; i++) {
+                                forks.add(
+                                        scope.fork(
+                                                () ->
+                                                        singleFlight.run(
+                                                                "k",
+                                                                () -> calls.incrementAndGet())));
+                            }
+                            // waiting until the other calls are likely to wait for the leader
+                            Thread.sleep(100);
+                            release.countDown();
+
+                            var rs = new ArrayList<Integer>();
+                            rs.add(leader.join());
+                            for (var f : forks) {
+                                rs.add(f.join());
+                            }
+                            return rs;
+                        });
+
+        assertEquals(1, calls.get());
+        assertTrue(results.stream().allMatch(r -> r == 42));
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    void testCallsForDifferentKeysRunIndependently() throws Exception {
+        var singleFlight = new SingleFlight<String, String>();
+
+        assertEquals("a", singleFlight.run("a", () -> "a"));
+        assertEquals("b", singleFlight.run("b", () -> "b"));
+    }
+
+    @Test
+    void testExceptionIsPropagatedToWaitingCallers() throws Exception {
+        var singleFlight = new SingleFlight<String, Integer>();
+        var started = new CountDownLatch(1);
+
+        var result =
+                supervised(
+                        scope -> {
+                            var leader =
+                                    scope.forkUnsupervised(
+                                            () ->
+                                                    singleFlight.run(
+                                                            "k",
+                                                            () -> {
+                                                                started.countDown();
+                                                                Thread.sleep(200);
+                                                                throw new RuntimeException("boom");
+                                                            }));
+                            started.await();
+                            var follower =
+                                    scope.forkUnsupervised(() -> singleFlight.run("k", () -> 1));
+
+                            assertThrows(ExecutionException.class, leader::join);
+                            try {
+                                follower.join();
+                                return "no exception";
+                            } catch (ExecutionException e) {
+                                return e.getCause().getMessage();
+                            }
+                        });
+
+        assertEquals("boom", result);
+    }
+
+    @Test
+    void testWaitingCallerBecomesLeaderIfLeaderIsInterrupted() throws Exception {
+        var singleFlight = new SingleFlight<String, Integer>();
+        var started = new CountDownLatch(1);
+
+        var result =
+                supervised(
+                        scope -> {
+                            var leader =
+                                    scope.forkCancellable(
+                                            () ->
+                                                    singleFlight.run(
+                                                            "k",
+                                                            () -> {
+                                                                started.countDown();
+                                                                Thread.sleep(10_000);
+                                                                return 1;
+                                                            }));
+                            started.await();
+                            var follower = scope.fork(() -> singleFlight.run("k", () -> 2));
+                            Thread.sleep(100);
+
+                            leader.cancelNow();
+                            return follower.join();
+                        });
+
+        assertEquals(2, result);
+    }
+}